@@ -0,0 +1,175 @@
+package circuitbreaker;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caps the calls in flight to one dependency so a slow dependency cannot tie
+ * up every caller thread.
+ *
+ * SEMAPHORE mode runs calls on the caller's thread and only counts them.
+ * THREAD_POOL mode runs them on a fixed pool with a bounded queue, so the
+ * caller gets a future back and never blocks on the dependency. A call that
+ * finds no free slot fails with {@link BulkheadFullException}.
+ */
+public class Bulkhead implements AutoCloseable {
+
+    private final String name;
+    private final BulkheadType type;
+    private final int maxConcurrentCalls;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    public Bulkhead(BulkheadConfig config, String name) {
+        this.name = name;
+        this.type = config.getType() != null ? config.getType() : BulkheadType.SEMAPHORE;
+        this.maxConcurrentCalls = config.getMaxConcurrentCalls();
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxWaitMs());
+        if (type == BulkheadType.SEMAPHORE) {
+            this.permits = new Semaphore(maxConcurrentCalls);
+            this.executor = null;
+        } else {
+            this.permits = null;
+            this.executor = newExecutor(name, maxConcurrentCalls, config.getQueueCapacity());
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor(String name, int threads, int queueCapacity) {
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "bulkhead-" + name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Runs the call on this thread if a slot is free (SEMAPHORE mode only).
+     */
+    public <T> T call(Supplier<T> supplier) throws BulkheadFullException {
+        if (!tryAcquire()) {
+            throw full();
+        }
+        try {
+            return supplier.get();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Takes a slot, waiting up to the configured time (SEMAPHORE mode only).
+     * Every successful acquire must be paired with {@link #release()}.
+     */
+    public boolean tryAcquire() {
+        return tryAcquireNow() || tryAcquireWaiting();
+    }
+
+    /**
+     * Takes a slot only if one is free right now. A miss is not counted as a
+     * rejection, since the caller may still wait with {@link #tryAcquireWaiting()}.
+     */
+    boolean tryAcquireNow() {
+        requireType(BulkheadType.SEMAPHORE);
+        return permits.tryAcquire();
+    }
+
+    /**
+     * Waits up to the configured time for a slot, counting a rejection if none frees up.
+     */
+    boolean tryAcquireWaiting() {
+        requireType(BulkheadType.SEMAPHORE);
+        boolean acquired = false;
+        if (maxWaitNanos > 0) {
+            try {
+                acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!acquired) {
+            rejectedCalls.increment();
+        }
+        return acquired;
+    }
+
+    public void release() {
+        requireType(BulkheadType.SEMAPHORE);
+        permits.release();
+    }
+
+    /**
+     * Queues the call on the pool (THREAD_POOL mode only).
+     *
+     * @return a future completing with the call's result, or exceptionally with
+     * {@link BulkheadFullException} when every thread is busy and the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> supplier) {
+        CompletableFuture<T> result = trySubmit(supplier);
+        return result != null ? result : CompletableFuture.failedFuture(full());
+    }
+
+    /**
+     * @return the call's future, or null if it was rejected
+     */
+    <T> CompletableFuture<T> trySubmit(Supplier<T> supplier) {
+        requireType(BulkheadType.THREAD_POOL);
+        try {
+            return CompletableFuture.supplyAsync(supplier, executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCalls.increment();
+            return null;
+        }
+    }
+
+    BulkheadFullException full() {
+        return new BulkheadFullException("Bulkhead " + name + " is full");
+    }
+
+    private void requireType(BulkheadType expected) {
+        if (type != expected) {
+            throw new IllegalStateException("Bulkhead " + name + " is " + type + ", not " + expected);
+        }
+    }
+
+    public BulkheadType getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Free slots; in THREAD_POOL mode, idle threads
+     */
+    public int getAvailableConcurrentCalls() {
+        return type == BulkheadType.SEMAPHORE
+                ? permits.availablePermits()
+                : maxConcurrentCalls - executor.getActiveCount();
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package circuitbreaker;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@AllArgsConstructor
+@Data
+@Builder
+public class BulkheadConfig {
+    // null means SEMAPHORE
+    private final BulkheadType type;
+    // Calls in flight at once; the pool size in THREAD_POOL mode
+    private final int maxConcurrentCalls;
+    // SEMAPHORE only: how long a caller may wait for a slot (0 rejects at once)
+    private final long maxWaitMs;
+    // THREAD_POOL only: calls queued behind the busy threads (0 queues none)
+    private final int queueCapacity;
+}
@@ -0,0 +1,7 @@
+package circuitbreaker;
+
+public class BulkheadFullException extends RuntimeException {
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package circuitbreaker;
+
+public enum BulkheadType {
+    // Caps concurrent calls on the callers' own threads
+    SEMAPHORE,
+    // Runs calls on a fixed pool with a bounded queue, isolating callers from slow calls
+    THREAD_POOL
+}
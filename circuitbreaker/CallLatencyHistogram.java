@@ -0,0 +1,48 @@
+package circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Call latency histogram with power-of-two buckets: bucket i holds calls that
+ * took [2^(i-1), 2^i) nanoseconds. Recording is one atomic increment, and
+ * percentiles are accurate to within a factor of two.
+ *
+ * Same bucketing as ratelimiter.metrics.LatencyHistogram, kept as a local copy
+ * because the top-level packages here never import one another.
+ */
+public class CallLatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long nanos) {
+        counts.incrementAndGet(64 - Long.numberOfLeadingZeros(Math.max(0, nanos)));
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile, 0 if nothing was recorded
+     *
+     * @param percentile between 0 and 1, e.g. 0.99
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
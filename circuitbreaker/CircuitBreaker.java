@@ -1,157 +1,297 @@
 package circuitbreaker;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 public class CircuitBreaker {
 
     private final CircuitBreakerConfig config;
     private final CircuitBreakerContext context;
-    private final ConcurrentHashMap<CircuitBreakerState, CircuitBreakerStateManager> stateManagers;
-    private final FixedWindowCountStrategy failureCounterStrategy;
-    private IObserver observer;
-    private final Object stateLock = new Object(); // Dedicated lock for state transitions
+    // Filled once in the constructor and only read afterwards
+    private final Map<CircuitBreakerState, CircuitBreakerStateManager> stateManagers;
+    private final IFailureCounterStrategy failureCounterStrategy;
+    private final long slowCallDurationNanos;
+    private final TimeSource timeSource;
+    private final CircuitBreakerMetrics metrics;
+    private final CircuitBreakerEventDispatcher eventDispatcher;
+    private volatile IObserver observer;
 
     public CircuitBreaker(CircuitBreakerConfig config, String user) {
+        this(config, user, CircuitBreakerEventDispatcher.shared());
+    }
+
+    /**
+     * @param eventDispatcher delivers this breaker's events to its observer
+     */
+    public CircuitBreaker(CircuitBreakerConfig config, String user, CircuitBreakerEventDispatcher eventDispatcher) {
         this.config = config;
-        this.failureCounterStrategy = new FixedWindowCountStrategy();
+        this.eventDispatcher = eventDispatcher;
+        this.timeSource = config.getTimeSourceOrDefault();
+        this.failureCounterStrategy = createFailureCounterStrategy(config, timeSource);
+        this.slowCallDurationNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowCallDurationMs());
 
         // Initialize context
         CircuitBreakerContext.WindowContext windowContext =
                 CircuitBreakerContext.WindowContext.builder()
-                        .currentWindowStartTime(new AtomicLong(System.currentTimeMillis()))
+                        .currentWindowStartTime(new AtomicLong(timeSource.millis()))
                         .currentWindowCount(new AtomicLong(0))
                         .totalRequestsInCurrentWindow(new AtomicLong(0))
                         .lastWindowCount(new AtomicLong(0))
-                        .lastRequestedAtInMs(new AtomicLong(System.currentTimeMillis()))
+                        .lastRequestedAtInMs(new AtomicLong(timeSource.millis()))
                         .build();
 
         this.context = CircuitBreakerContext.builder()
                 .circuitBreakerConfig(config)
                 .user(user)
                 .windowContext(windowContext)
-                .currentTime(new AtomicLong(System.currentTimeMillis()))
-                .currentState(CircuitBreakerState.CLOSED)
+                .currentTime(new AtomicLong(timeSource.millis()))
+                .timeSource(timeSource)
+                .state(new AtomicReference<>(CircuitBreakerState.CLOSED))
                 .build();
+        this.metrics = new CircuitBreakerMetrics(failureCounterStrategy, context);
 
         // Initialize state managers
-        this.stateManagers = new ConcurrentHashMap<>();
+        this.stateManagers = new EnumMap<>(CircuitBreakerState.class);
         stateManagers.put(CircuitBreakerState.CLOSED,
                 new CloseStateManager(failureCounterStrategy));
 
-        OpenStateManager openStateManager = new OpenStateManager(failureCounterStrategy);
-        openStateManager.setStateManagers(stateManagers);
-        openStateManager.setStateLock(stateLock); // Share lock!
-        stateManagers.put(CircuitBreakerState.OPEN, openStateManager);
+        stateManagers.put(CircuitBreakerState.OPEN,
+                new OpenStateManager(failureCounterStrategy));
 
         stateManagers.put(CircuitBreakerState.HALF_OPEN,
                 new HalfOpenStateManager(failureCounterStrategy));
 
         // Initialize with CLOSED state
-        getCurrentStateManager().onEnter(context);
+        stateManagers.get(CircuitBreakerState.CLOSED).onEnter(context);
     }
 
-    public <T> T call(Supplier<T> supplier) throws CircuitBreakerOpenException {
-        context.getCurrentTime().set(System.currentTimeMillis());
-
-        // Check if request is allowed (doesn't need lock for reading volatile state)
-        CircuitBreakerStateManager currentManager = getCurrentStateManager();
-        if (!currentManager.allowRequest(context)) {
-            throw new CircuitBreakerOpenException(
-                    "Circuit breaker in " + context.getCurrentState() + " state - Request blocked");
+    private static IFailureCounterStrategy createFailureCounterStrategy(CircuitBreakerConfig config,
+                                                                       TimeSource timeSource) {
+        SlidingWindowType windowType = config.getSlidingWindowType() != null
+                ? config.getSlidingWindowType() : SlidingWindowType.FIXED;
+        switch (windowType) {
+            case TIME_BASED:
+                return new SlidingWindowCountStrategy(config.getWindowForFailureCount(),
+                        SlidingWindowCountStrategy.DEFAULT_BUCKETS, timeSource);
+            case COUNT_BASED:
+                return new CountBasedSlidingWindowStrategy(
+                        config.getSlidingWindowSize() > 0 ? config.getSlidingWindowSize() : 100);
+            default:
+                return new FixedWindowCountStrategy();
         }
+    }
 
+    public <T> T call(Supplier<T> supplier) throws CircuitBreakerOpenException {
+        long start = acquirePermission();
         try {
             T result = supplier.get();
-            onSuccess();
+            onResult(false, start);
             return result;
 
         } catch (Exception e) {
-            onFailure();
+            onResult(true, start);
             throw e;
         }
     }
 
-    private void onSuccess() {
-        context.getCurrentTime().set(System.currentTimeMillis());
-
-        failureCounterStrategy.recordSuccess(context);
-
-        System.out.println("✓ Success | State: " + context.getCurrentState() +
-                " | Failures: " + failureCounterStrategy.countFailures(context) +
-                " | Total: " + context.getWindowContext().getTotalRequestsInCurrentWindow().get());
-
-        checkAndTransition();
+    /**
+     * Admits one call against the current state, or records the rejection and
+     * throws. A permitted call must be completed with {@link #onResult}.
+     *
+     * @return the time the call was admitted, in the time source's nanoseconds
+     */
+    long acquirePermission() throws CircuitBreakerOpenException {
+        // One clock read serves the window's time and the call's start
+        long now = timeSource.nanoTime();
+        context.getCurrentTime().set(TimeUnit.NANOSECONDS.toMillis(now));
+
+        // Lock-free check against the current state
+        CircuitBreakerState state = currentState();
+        if (!stateManagers.get(state).allowRequest(context)) {
+            metrics.recordNotPermitted();
+            publish(CircuitBreakerEventType.CALL_NOT_PERMITTED, state, null, false, 0);
+            throw new CircuitBreakerOpenException(
+                    "Circuit breaker in " + state + " state - Request blocked");
+        }
+        return now;
     }
 
-    private void onFailure() {
-        context.getCurrentTime().set(System.currentTimeMillis());
-
-        failureCounterStrategy.recordFailure(context);
+    /**
+     * Records a permitted call that a bulkhead then turned away. It says nothing
+     * about the dependency's health, so the permission is handed back and the
+     * call only shows up in the metrics.
+     */
+    void onBulkheadFull() {
+        releasePermission();
+        metrics.recordBulkheadFull();
+        publish(CircuitBreakerEventType.BULKHEAD_FULL, context.getCurrentState(), null, false, 0);
+    }
 
-        System.out.println("✗ Failure | State: " + context.getCurrentState() +
-                " | Failures: " + failureCounterStrategy.countFailures(context) +
-                " | Total: " + context.getWindowContext().getTotalRequestsInCurrentWindow().get());
+    /**
+     * Hands back a permission whose call never ran, recording nothing.
+     */
+    void releasePermission() {
+        stateManagers.get(context.getCurrentState()).releasePermission(context);
+    }
 
-        checkAndTransition();
+    public <T> CompletableFuture<T> callAsync(Supplier<? extends CompletionStage<T>> supplier) {
+        return callAsync(supplier, 0);
     }
 
-    private void checkAndTransition() {
-        synchronized (stateLock) { // Synchronize state transitions
-            CircuitBreakerState currentState = context.getCurrentState();
-            CircuitBreakerStateManager currentManager = getCurrentStateManager();
+    /**
+     * Protects a non-blocking call. The outcome is recorded once, when the stage
+     * completes or the timeout fires, whichever comes first. The timeout uses
+     * CompletableFuture's shared delay scheduler, so no thread waits per call.
+     *
+     * @param timeoutMs fail the call if the stage has not completed by then (0 for no timeout)
+     * @return a future completing with the stage's result, or exceptionally with
+     * {@link CircuitBreakerOpenException}, a {@link java.util.concurrent.TimeoutException}
+     * or the stage's own failure
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<? extends CompletionStage<T>> supplier, long timeoutMs) {
+        long start;
+        try {
+            start = acquirePermission();
+        } catch (CircuitBreakerOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
 
-            CircuitBreakerState nextState = currentManager.getNext(context);
+        CompletionStage<T> stage;
+        try {
+            stage = supplier.get();
+        } catch (Exception e) {
+            onResult(true, start);
+            return CompletableFuture.failedFuture(e);
+        }
 
-            if (nextState != currentState) {
-                transitionTo(nextState);
+        // A separate future so the timeout never completes the caller's own stage
+        CompletableFuture<T> result = new CompletableFuture<>();
+        stage.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+            } else {
+                result.complete(value);
             }
+        });
+        if (timeoutMs > 0) {
+            result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
         }
+        // Callers see the outcome only after it has been recorded
+        return result.whenComplete((value, error) -> onResult(error != null, start));
     }
 
-    private void transitionTo(CircuitBreakerState nextState) {
-        // Must be called within synchronized block!
-        CircuitBreakerState currentState = context.getCurrentState();
-        System.out.println("State transition: " + currentState + " → " + nextState);
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
 
-        context.setCurrentState(nextState);
+    /**
+     * Records the outcome of a permitted call and moves to the next state if a
+     * threshold was crossed. Reads the clock once for both the duration and the window.
+     *
+     * @param startNanos when the call started, usually the value {@link #acquirePermission} returned
+     */
+    void onResult(boolean failure, long startNanos) {
+        long now = timeSource.nanoTime();
+        long durationNanos = now - startNanos;
+        context.getCurrentTime().set(TimeUnit.NANOSECONDS.toMillis(now));
+
+        boolean slow = slowCallDurationNanos > 0 && durationNanos >= slowCallDurationNanos;
+        failureCounterStrategy.record(context, failure, slow);
+        metrics.recordCall(failure, slow, durationNanos);
+
+        CircuitBreakerState state = context.getCurrentState();
+        publish(failure ? CircuitBreakerEventType.FAILURE : CircuitBreakerEventType.SUCCESS,
+                state, null, slow, durationNanos);
+
+        // Evaluating the thresholds only reads counters; a transition is attempted only when one is crossed
+        CircuitBreakerState nextState = stateManagers.get(state).getNext(context);
+        if (nextState != state) {
+            transition(state, nextState);
+        }
+    }
 
-        CircuitBreakerStateManager nextManager = stateManagers.get(nextState);
-        if (nextManager == null) {
-            throw new IllegalStateException("No state manager found for: " + nextState);
+    /**
+     * The state, after moving OPEN to HALF_OPEN if its timeout has elapsed
+     */
+    private CircuitBreakerState currentState() {
+        CircuitBreakerState state = context.getCurrentState();
+        if (state == CircuitBreakerState.OPEN
+                && stateManagers.get(state).getNext(context) == CircuitBreakerState.HALF_OPEN) {
+            transition(CircuitBreakerState.OPEN, CircuitBreakerState.HALF_OPEN);
+            state = context.getCurrentState();
         }
-        nextManager.onEnter(context);
+        return state;
+    }
 
-        if (observer != null) {
-            observer.registerMetrics(new CircuitBreakerMetrics());
+    /**
+     * Moves from one state to another if the breaker is still in the first.
+     * Only the thread whose CAS succeeds runs the new state's entry action, so
+     * racing threads that saw the same threshold crossed transition once.
+     */
+    private void transition(CircuitBreakerState from, CircuitBreakerState to) {
+        if (!context.compareAndSetState(from, to)) {
+            return;
         }
+        metrics.recordTransition(from);
+        stateManagers.get(to).onEnter(context);
+        publish(CircuitBreakerEventType.STATE_TRANSITION, from, to, false, 0);
     }
 
-    private CircuitBreakerStateManager getCurrentStateManager() {
-        CircuitBreakerStateManager manager = stateManagers.get(context.getCurrentState());
-        if (manager == null) {
-            throw new IllegalStateException("No state manager for: " + context.getCurrentState());
+    /**
+     * Hands the event to the dispatcher without waiting for the observer
+     */
+    private void publish(CircuitBreakerEventType type, CircuitBreakerState state,
+                         CircuitBreakerState toState, boolean slow, long durationNanos) {
+        IObserver currentObserver = observer;
+        // No event is built when nobody listens
+        if (currentObserver != null) {
+            eventDispatcher.dispatch(currentObserver, new CircuitBreakerEvent(type, context.getUser(), state,
+                    toState, slow, durationNanos, context.getCurrentTime().get()));
         }
-        return manager;
     }
 
+    /**
+     * Hands the observer this breaker's live metrics once; events then arrive on
+     * the dispatcher thread.
+     */
     public void registerObserver(IObserver observer) {
         this.observer = observer;
+        observer.registerMetrics(metrics);
+    }
+
+    /**
+     * Reads the breaker's time source, so callers timing calls for it use the same clock
+     */
+    long nanoTime() {
+        return timeSource.nanoTime();
+    }
+
+    public CircuitBreakerMetrics getMetrics() {
+        return metrics;
     }
 
     public CircuitBreakerState getCurrentState() {
-        return context.getCurrentState();
+        return currentState();
+    }
+
+    public String getUser() {
+        return context.getUser();
     }
 
     public int getCurrentFailureCount() {
         return failureCounterStrategy.countFailures(context);
     }
 
+    /**
+     * Nothing to stop: the OPEN timeout is checked on access, so a breaker owns no threads.
+     */
     public void shutdown() {
-        OpenStateManager openManager = (OpenStateManager) stateManagers.get(CircuitBreakerState.OPEN);
-        if (openManager != null) {
-            openManager.shutdown();
-        }
     }
-}
\ No newline at end of file
+}
@@ -8,9 +8,29 @@ import lombok.Data;
 @Data
 @Builder
 public class CircuitBreakerConfig {
+    // Absolute failure count that trips the breaker (0 disables)
     private final int threshold;
     private final long timeoutInMs;
     private final long windowForFailureCount;
     private final int allowedRequestsInHalfOpen;
     private final int allowedFailureRequestInHalfOpen;
+
+    // Window the thresholds are evaluated over (null means FIXED)
+    private final SlidingWindowType slidingWindowType;
+    // Calls kept by a COUNT_BASED window (0 means 100)
+    private final int slidingWindowSize;
+
+    // Rate thresholds in percent (0 disables), checked once the window holds minimumNumberOfCalls
+    private final float failureRateThreshold;
+    private final float slowCallRateThreshold;
+    // Calls taking at least this long count as slow (0 disables)
+    private final long slowCallDurationMs;
+    private final int minimumNumberOfCalls;
+
+    // Defaults to System.nanoTime() when not set
+    private final TimeSource timeSource;
+
+    public TimeSource getTimeSourceOrDefault() {
+        return timeSource != null ? timeSource : SystemTimeSource.INSTANCE;
+    }
 }
@@ -14,8 +14,19 @@ public class CircuitBreakerContext {
     private CircuitBreakerConfig circuitBreakerConfig;
     private String user;
     private WindowContext windowContext;
+    // Time of the call being handled, in the time source's milliseconds
     private AtomicLong currentTime;
-    private volatile CircuitBreakerState currentState; // volatile is key!
+    private TimeSource timeSource;
+    // Transitions are CAS-driven so no lock is needed on the call path
+    private AtomicReference<CircuitBreakerState> state;
+
+    public CircuitBreakerState getCurrentState() {
+        return state.get();
+    }
+
+    public boolean compareAndSetState(CircuitBreakerState expected, CircuitBreakerState next) {
+        return state.compareAndSet(expected, next);
+    }
 
     @Data
     @AllArgsConstructor
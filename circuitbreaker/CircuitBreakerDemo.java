@@ -1,5 +1,7 @@
 package circuitbreaker;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
 import java.util.function.Supplier;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -17,6 +19,7 @@ public class CircuitBreakerDemo {
                 .build();
 
         CircuitBreaker cb = new CircuitBreaker(config, "user123");
+        cb.registerObserver(new LoggingObserver());
         RemoteService service = new RemoteService();
 
         System.out.println("=== Circuit Breaker Demo ===\n");
@@ -40,7 +43,7 @@ public class CircuitBreakerDemo {
         }
 
         // Wait for timeout to transition to HALF_OPEN
-        System.out.println("\n--- Waiting 6 seconds for timeout (auto-transition to HALF_OPEN) ---");
+        System.out.println("\n--- Waiting 6 seconds for timeout (next call moves it to HALF_OPEN) ---");
         Thread.sleep(6000);
 
         // Scenario 4: HALF_OPEN - Successful recovery
@@ -97,6 +100,43 @@ public class CircuitBreakerDemo {
         System.out.println("\n\n========== CONCURRENT LOAD TESTING ==========\n");
         testConcurrentLoad(cb, service, config);
 
+        // ========== RATE THRESHOLDS ==========
+        System.out.println("\n\n========== RATE THRESHOLDS ==========\n");
+        testRateThresholds(service);
+
+        // ========== ASYNC CALLS ==========
+        System.out.println("\n\n========== ASYNC CALLS ==========\n");
+        testAsyncCalls(service);
+
+        // ========== REGISTRY ==========
+        System.out.println("\n\n========== REGISTRY ==========\n");
+        testRegistry(service);
+
+        // ========== METRICS AND EVENT STREAM ==========
+        System.out.println("\n\n========== METRICS AND EVENT STREAM ==========\n");
+        testMetricsAndSlowObserver(service);
+        System.out.println("  Main breaker: " + cb.getMetrics());
+
+        // ========== BULKHEAD ==========
+        System.out.println("\n\n========== BULKHEAD ==========\n");
+        testBulkhead(service);
+
+        // ========== RETRY ==========
+        System.out.println("\n\n========== RETRY ==========\n");
+        testRetry();
+
+        // ========== TIME-BASED WINDOW ==========
+        System.out.println("\n\n========== TIME-BASED WINDOW ==========\n");
+        testTimeBasedWindowAcrossZero(service);
+
+        // ========== PIPELINE ON A THREAD POOL ==========
+        System.out.println("\n\n========== PIPELINE ON A THREAD POOL ==========\n");
+        testBlockingCallOnThreadPool(service);
+
+        // ========== RETRY AFTER SHUTDOWN ==========
+        System.out.println("\n\n========== RETRY AFTER SHUTDOWN ==========\n");
+        testRetryOnStoppedScheduler();
+
         System.out.println("\n=== Demo Complete ===");
         cb.shutdown();
     }
@@ -229,7 +269,8 @@ public class CircuitBreakerDemo {
                     startLatch.await(); // Wait for signal to start
 
                     try {
-                        cb.call(() -> service.call(true));
+                        // Slow enough that the trial calls are still running when the other threads arrive
+                        cb.call(() -> service.slowCall(50));
                         successCount.incrementAndGet();
                         System.out.println("  [Thread-" + threadId + "] -> Success in HALF_OPEN");
                     } catch (CircuitBreakerOpenException e) {
@@ -276,6 +317,469 @@ public class CircuitBreakerDemo {
         }
     }
 
+    /**
+     * Trip on failure rate and slow-call rate over the last 10 calls instead of an absolute count
+     */
+    private static void testRateThresholds(RemoteService service) {
+        System.out.println("--- Scenario 14: Failure Rate Over Last 10 Calls (50%, min 5 calls) ---");
+        CircuitBreaker rateCb = new CircuitBreaker(CircuitBreakerConfig.builder()
+                .timeoutInMs(5000)
+                .allowedRequestsInHalfOpen(3)
+                .allowedFailureRequestInHalfOpen(2)
+                .slidingWindowType(SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(10)
+                .minimumNumberOfCalls(5)
+                .failureRateThreshold(50)
+                .build(), "user123");
+        rateCb.registerObserver(new LoggingObserver());
+
+        // 3 of the first 4 calls fail, but the breaker waits for 5 calls before judging the rate
+        for (boolean succeed : new boolean[]{true, false, false, false, true}) {
+            makeCall(rateCb, () -> service.call(succeed), 0);
+        }
+        System.out.println("  State after 3/5 failures: " + rateCb.getCurrentState());
+        rateCb.shutdown();
+
+        System.out.println("\n--- Scenario 15: Slow Call Rate (calls >= 50ms, 50%, min 4 calls) ---");
+        CircuitBreaker slowCb = new CircuitBreaker(CircuitBreakerConfig.builder()
+                .timeoutInMs(5000)
+                .allowedRequestsInHalfOpen(3)
+                .allowedFailureRequestInHalfOpen(2)
+                .slidingWindowType(SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(10)
+                .minimumNumberOfCalls(4)
+                .slowCallDurationMs(50)
+                .slowCallRateThreshold(50)
+                .build(), "user123");
+        slowCb.registerObserver(new LoggingObserver());
+
+        for (int i = 0; i < 4; i++) {
+            long delayMs = i % 2 == 0 ? 0 : 60;
+            makeCall(slowCb, () -> service.slowCall(delayMs), i + 1);
+        }
+        System.out.println("  State after 2/4 slow calls: " + slowCb.getCurrentState());
+        slowCb.shutdown();
+    }
+
+    /**
+     * Non-blocking calls: failures and timeouts are recorded when the future completes
+     */
+    private static void testAsyncCalls(RemoteService service) {
+        System.out.println("--- Scenario 16: Async Calls With 100ms Timeout (trip after 2 failures) ---");
+        CircuitBreaker asyncCb = new CircuitBreaker(CircuitBreakerConfig.builder()
+                .threshold(2)
+                .timeoutInMs(5000)
+                .windowForFailureCount(10000)
+                .allowedRequestsInHalfOpen(3)
+                .allowedFailureRequestInHalfOpen(2)
+                .build(), "user123");
+        asyncCb.registerObserver(new LoggingObserver());
+
+        long[] delaysMs = {0, 300, 300, 0};
+        for (int i = 0; i < delaysMs.length; i++) {
+            long delayMs = delaysMs[i];
+            int requestNum = i + 1;
+            CompletableFuture<String> future = asyncCb.callAsync(
+                    () -> CompletableFuture.supplyAsync(() -> service.slowCall(delayMs)), 100);
+            try {
+                future.join();
+                System.out.println("  Request #" + requestNum + " -> Success");
+            } catch (CompletionException e) {
+                System.out.println("  Request #" + requestNum + " -> " + e.getCause().getClass().getSimpleName());
+            }
+        }
+        System.out.println("  State after 2 timeouts: " + asyncCb.getCurrentState());
+        asyncCb.shutdown();
+    }
+
+    /**
+     * One breaker per downstream host, created lazily, with no thread per breaker
+     */
+    private static void testRegistry(RemoteService service) {
+        System.out.println("--- Scenario 17: 2000 Per-Host Breakers, 200ms Idle Expiry ---");
+        ManualTimeSource clock = new ManualTimeSource();
+        CircuitBreakerRegistry registry = new CircuitBreakerRegistry(CircuitBreakerConfig.builder()
+                .timeSource(clock)
+                .threshold(2)
+                .timeoutInMs(5000)
+                .windowForFailureCount(10000)
+                .allowedRequestsInHalfOpen(3)
+                .allowedFailureRequestInHalfOpen(2)
+                .build(), 200);
+
+        int threadsBefore = Thread.activeCount();
+        for (int i = 0; i < 2000; i++) {
+            CircuitBreaker hostCb = registry.getOrCreate("host-" + i);
+            hostCb.call(() -> service.call(true));
+        }
+        System.out.println("  Breakers: " + registry.size() +
+                ", threads added: " + (Thread.activeCount() - threadsBefore));
+
+        CircuitBreaker failing = registry.getOrCreate("host-7");
+        for (int i = 0; i < 2; i++) {
+            try {
+                failing.call(() -> service.call(false));
+            } catch (RuntimeException e) {
+                // Counted by the breaker
+            }
+        }
+        System.out.println("  host-7 state: " + failing.getCurrentState());
+
+        clock.advanceMillis(300);
+        registry.getOrCreate("host-new");
+        System.out.println("  After idle expiry: " + registry.size() + " breakers (host-new and the OPEN host-7 kept)");
+        registry.shutdown();
+    }
+
+    /**
+     * An observer that takes 10ms per event must not slow calls down: events
+     * past the buffer's capacity are dropped instead of waited for.
+     */
+    private static void testMetricsAndSlowObserver(RemoteService service) {
+        System.out.println("--- Scenario 18: Metrics With A Slow Observer (buffer of 100 events) ---");
+        CircuitBreakerConfig metricsConfig = CircuitBreakerConfig.builder()
+                .slidingWindowType(SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(1000)
+                .failureRateThreshold(90)
+                .minimumNumberOfCalls(1000)
+                .timeoutInMs(5000)
+                .allowedRequestsInHalfOpen(3)
+                .allowedFailureRequestInHalfOpen(2)
+                .build();
+        CircuitBreakerEventDispatcher dispatcher = new CircuitBreakerEventDispatcher(100);
+        CircuitBreaker metricsCb = new CircuitBreaker(metricsConfig, "metrics", dispatcher);
+        AtomicInteger delivered = new AtomicInteger();
+        metricsCb.registerObserver(new IObserver() {
+            @Override
+            public void registerMetrics(CircuitBreakerMetrics circuitBreakerMetrics) {
+            }
+
+            @Override
+            public void onEvent(CircuitBreakerEvent event) {
+                delivered.incrementAndGet();
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            try {
+                metricsCb.call(() -> service.call(ThreadLocalRandom.current().nextInt(4) != 0));
+            } catch (RuntimeException e) {
+                // Counted by the breaker
+            }
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        CircuitBreakerMetrics metrics = metricsCb.getMetrics();
+        System.out.println("  1000 calls took " + elapsedMs + "ms (delivering every event would take ~10s)");
+        System.out.println("  " + metrics);
+        System.out.printf("  Slow-call rate: %.1f%%, time in CLOSED: %dms%n", metrics.getSlowCallRate(),
+                TimeUnit.NANOSECONDS.toMillis(metrics.getTimeInStateNanos(CircuitBreakerState.CLOSED)));
+        System.out.println("  Events dropped: " + dispatcher.getDroppedCount() +
+                ", delivered so far: " + delivered.get());
+        dispatcher.close();
+    }
+
+    /**
+     * Calls the bulkhead turns away show up in the breaker's metrics but never
+     * count as failures, so a saturated bulkhead does not trip the breaker.
+     */
+    private static void testBulkhead(RemoteService service) throws InterruptedException {
+        System.out.println("--- Scenario 19: Semaphore Bulkhead Of 5, 20 Concurrent 100ms Calls ---");
+        CircuitBreakerConfig bulkheadCbConfig = CircuitBreakerConfig.builder()
+                .threshold(3)
+                .timeoutInMs(5000)
+                .windowForFailureCount(10000)
+                .allowedRequestsInHalfOpen(3)
+                .allowedFailureRequestInHalfOpen(2)
+                .build();
+        CircuitBreaker semaphoreCb = new CircuitBreaker(bulkheadCbConfig, "semaphore");
+        ResiliencePipeline semaphorePipeline = ResiliencePipeline.builder()
+                .circuitBreaker(semaphoreCb)
+                .bulkhead(new Bulkhead(BulkheadConfig.builder().maxConcurrentCalls(5).build(), "semaphore"))
+                .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(20);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        for (int i = 0; i < 20; i++) {
+            executor.submit(() -> {
+                try {
+                    startLatch.await();
+                    semaphorePipeline.call(() -> service.slowCall(100));
+                    completed.incrementAndGet();
+                } catch (BulkheadFullException e) {
+                    rejected.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+        startLatch.countDown();
+        doneLatch.await();
+        executor.shutdown();
+        System.out.println("  Completed: " + completed.get() + ", rejected: " + rejected.get() +
+                ", breaker state: " + semaphoreCb.getCurrentState());
+        System.out.println("  " + semaphoreCb.getMetrics());
+
+        System.out.println("\n--- Scenario 20: Thread-Pool Bulkhead (2 threads, queue of 2), 10 Submitted Calls ---");
+        CircuitBreaker poolCb = new CircuitBreaker(bulkheadCbConfig, "pool");
+        Bulkhead poolBulkhead = new Bulkhead(BulkheadConfig.builder()
+                .type(BulkheadType.THREAD_POOL)
+                .maxConcurrentCalls(2)
+                .queueCapacity(2)
+                .build(), "pool");
+        ResiliencePipeline poolPipeline = ResiliencePipeline.builder()
+                .circuitBreaker(poolCb)
+                .bulkhead(poolBulkhead)
+                .build();
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(poolPipeline.submit(() -> service.slowCall(100)));
+        }
+        int poolCompleted = 0;
+        int poolRejected = 0;
+        for (CompletableFuture<String> future : futures) {
+            try {
+                future.join();
+                poolCompleted++;
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof BulkheadFullException) {
+                    poolRejected++;
+                }
+            }
+        }
+        System.out.println("  Completed: " + poolCompleted + ", rejected: " + poolRejected +
+                ", breaker state: " + poolCb.getCurrentState());
+        System.out.println("  " + poolCb.getMetrics());
+        poolBulkhead.close();
+    }
+
+    /**
+     * Retries recover transient failures, but stop once the breaker opens or
+     * the budget is spent, so an outage is not amplified
+     */
+    private static void testRetry() {
+        System.out.println("--- Scenario 21: Every Request Fails Twice, Then Succeeds (4 attempts, 10-100ms backoff) ---");
+        AtomicInteger attempts = new AtomicInteger();
+        ResiliencePipeline flakyPipeline = ResiliencePipeline.builder()
+                .circuitBreaker(new CircuitBreaker(CircuitBreakerConfig.builder()
+                        .threshold(100)
+                        .timeoutInMs(5000)
+                        .windowForFailureCount(10000)
+                        .allowedRequestsInHalfOpen(3)
+                        .allowedFailureRequestInHalfOpen(2)
+                        .build(), "flaky"))
+                .retry(new Retry(RetryConfig.builder()
+                        .maxAttempts(4)
+                        .baseDelayMs(10)
+                        .maxDelayMs(100)
+                        .build()))
+                .build();
+        int succeeded = 0;
+        for (int i = 0; i < 10; i++) {
+            String response = flakyPipeline.call(() -> {
+                if (attempts.incrementAndGet() % 3 != 0) {
+                    throw new RuntimeException("Transient failure");
+                }
+                return "ok";
+            });
+            if ("ok".equals(response)) {
+                succeeded++;
+            }
+        }
+        System.out.println("  Succeeded: " + succeeded + "/10 after " + attempts.get() + " attempts");
+
+        System.out.println("\n--- Scenario 22: Outage - 50 Requests, 5 Attempts Each, 20% Retry Budget, Breaker Trips After 40 Failures ---");
+        AtomicInteger outageAttempts = new AtomicInteger();
+        CircuitBreaker outageCb = new CircuitBreaker(CircuitBreakerConfig.builder()
+                .threshold(40)
+                .timeoutInMs(5000)
+                .windowForFailureCount(10000)
+                .allowedRequestsInHalfOpen(3)
+                .allowedFailureRequestInHalfOpen(2)
+                .build(), "outage");
+        Retry outageRetry = new Retry(RetryConfig.builder()
+                .maxAttempts(5)
+                .baseDelayMs(1)
+                .maxDelayMs(10)
+                .retryBudgetPercent(20)
+                .build());
+        ResiliencePipeline outagePipeline = ResiliencePipeline.builder()
+                .circuitBreaker(outageCb)
+                .retry(outageRetry)
+                .build();
+        int rejected = 0;
+        for (int i = 0; i < 50; i++) {
+            try {
+                outagePipeline.call(() -> {
+                    outageAttempts.incrementAndGet();
+                    throw new RuntimeException("Service down");
+                });
+            } catch (CircuitBreakerOpenException e) {
+                rejected++;
+            } catch (RuntimeException e) {
+                // The last attempt's failure
+            }
+        }
+        System.out.println("  Attempts reaching the service: " + outageAttempts.get() +
+                " (naive retry loops: 250), rejected by breaker: " + rejected);
+        System.out.println("  Retries: " + outageRetry.getRetries() +
+                ", denied by budget: " + outageRetry.getRetriesDeniedByBudget() +
+                ", skipped while OPEN: " + outageRetry.getRetriesSkippedWhileOpen() +
+                ", breaker state: " + outageCb.getCurrentState());
+
+        System.out.println("\n--- Scenario 23: Outage - 50 Requests, 3 Attempts Each, 0.05% Retry Budget, No Breaker ---");
+        AtomicInteger tinyBudgetAttempts = new AtomicInteger();
+        Retry tinyBudgetRetry = new Retry(RetryConfig.builder()
+                .maxAttempts(3)
+                .baseDelayMs(1)
+                .maxDelayMs(5)
+                .retryBudgetPercent(0.05f)
+                .build());
+        ResiliencePipeline tinyBudgetPipeline = ResiliencePipeline.builder()
+                .retry(tinyBudgetRetry)
+                .build();
+        for (int i = 0; i < 50; i++) {
+            try {
+                tinyBudgetPipeline.call(() -> {
+                    tinyBudgetAttempts.incrementAndGet();
+                    throw new RuntimeException("Service down");
+                });
+            } catch (RuntimeException e) {
+                // The last attempt's failure
+            }
+        }
+        // Only the 10 banked retries are spent; a budget too small to express is not unlimited
+        System.out.println("  Attempts reaching the service: " + tinyBudgetAttempts.get() +
+                " (unlimited: 150), retries: " + tinyBudgetRetry.getRetries() +
+                ", denied by budget: " + tinyBudgetRetry.getRetriesDeniedByBudget());
+    }
+
+    /**
+     * Monotonic clocks may read negative, so the window must bucket times
+     * before and after zero the same way
+     */
+    private static void testTimeBasedWindowAcrossZero(RemoteService service) {
+        System.out.println("--- Scenario 24: Time-Based 1s Window, Clock Starting At -300ms, Trip After 3 Failures ---");
+        ManualTimeSource clock = new ManualTimeSource();
+        clock.advanceMillis(-300);
+        CircuitBreaker windowCb = new CircuitBreaker(CircuitBreakerConfig.builder()
+                .timeSource(clock)
+                .threshold(3)
+                .timeoutInMs(5000)
+                .windowForFailureCount(1000)
+                .allowedRequestsInHalfOpen(3)
+                .allowedFailureRequestInHalfOpen(2)
+                .slidingWindowType(SlidingWindowType.TIME_BASED)
+                .build(), "user123");
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                windowCb.call(() -> service.call(false));
+            } catch (RuntimeException e) {
+                // Counted by the breaker
+            }
+            clock.advanceMillis(150);
+        }
+        System.out.println("  Failures at -300ms, -150ms and 0ms, state: " + windowCb.getCurrentState());
+        windowCb.shutdown();
+    }
+
+    /**
+     * call() on a THREAD_POOL pipeline waits for the pool instead of failing,
+     * so HALF_OPEN trials made that way complete and can close the breaker
+     */
+    private static void testBlockingCallOnThreadPool(RemoteService service) {
+        System.out.println("--- Scenario 25: Blocking call() Through A Thread-Pool Bulkhead, Trip Then Recover ---");
+        ManualTimeSource clock = new ManualTimeSource();
+        CircuitBreaker poolCb = new CircuitBreaker(CircuitBreakerConfig.builder()
+                .timeSource(clock)
+                .threshold(2)
+                .timeoutInMs(1000)
+                .windowForFailureCount(10000)
+                .allowedRequestsInHalfOpen(3)
+                .allowedFailureRequestInHalfOpen(2)
+                .build(), "pool-call");
+        Bulkhead poolBulkhead = new Bulkhead(BulkheadConfig.builder()
+                .type(BulkheadType.THREAD_POOL)
+                .maxConcurrentCalls(2)
+                .queueCapacity(2)
+                .build(), "pool-call");
+        ResiliencePipeline pipeline = ResiliencePipeline.builder()
+                .circuitBreaker(poolCb)
+                .bulkhead(poolBulkhead)
+                .build();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                pipeline.call(() -> service.call(false));
+            } catch (RuntimeException e) {
+                // Counted by the breaker
+            }
+        }
+        System.out.println("  After 2 failures: " + poolCb.getCurrentState());
+
+        clock.advanceMillis(1500);
+        int succeeded = 0;
+        for (int i = 0; i < 3; i++) {
+            try {
+                pipeline.call(() -> service.call(true));
+                succeeded++;
+            } catch (RuntimeException e) {
+                System.out.println("  Trial call failed: " + e);
+            }
+        }
+        System.out.println("  After the OPEN timeout, " + succeeded + "/3 trial calls succeeded, state: "
+                + poolCb.getCurrentState());
+        poolBulkhead.close();
+        poolCb.shutdown();
+    }
+
+    /**
+     * A retry its scheduler refuses ends the call with the attempt's failure
+     * instead of leaving call() waiting on a future nobody completes
+     */
+    private static void testRetryOnStoppedScheduler() {
+        System.out.println("--- Scenario 26: Failing Call, 3 Attempts, Retry Scheduler Already Shut Down ---");
+        ScheduledExecutorService stopped = Executors.newSingleThreadScheduledExecutor();
+        stopped.shutdown();
+        Retry stoppedRetry = new Retry(RetryConfig.builder()
+                .maxAttempts(3)
+                .baseDelayMs(10)
+                .retryBudgetPercent(20)
+                .build(), stopped);
+        ResiliencePipeline pipeline = ResiliencePipeline.builder()
+                .retry(stoppedRetry)
+                .build();
+
+        CompletableFuture<String> outcome = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pipeline.call(() -> {
+                    throw new IllegalStateException("Service down");
+                });
+            } catch (RuntimeException e) {
+                return e.getMessage();
+            }
+        });
+        try {
+            System.out.println("  call() ended with: " + outcome.get(2, TimeUnit.SECONDS) +
+                    ", retries run: " + stoppedRetry.getRetries());
+        } catch (Exception e) {
+            System.out.println("  call() did not return: " + e);
+        }
+    }
+
     private static <T> void makeCall(CircuitBreaker cb, Supplier<T> supplier, int requestNum) {
         try {
             T result = cb.call(supplier);
@@ -294,6 +798,33 @@ public class CircuitBreakerDemo {
     }
 }
 
+/**
+ * Prints call outcomes and transitions; the breaker itself no longer logs
+ */
+class LoggingObserver implements IObserver {
+
+    @Override
+    public void registerMetrics(CircuitBreakerMetrics circuitBreakerMetrics) {
+    }
+
+    @Override
+    public void onEvent(CircuitBreakerEvent event) {
+        switch (event.getType()) {
+            case SUCCESS:
+                System.out.println("✓ Success | State: " + event.getState() + (event.isSlowCall() ? " | Slow" : ""));
+                break;
+            case FAILURE:
+                System.out.println("✗ Failure | State: " + event.getState() + (event.isSlowCall() ? " | Slow" : ""));
+                break;
+            case STATE_TRANSITION:
+                System.out.println("State transition: " + event.getState() + " → " + event.getToState());
+                break;
+            default:
+                break;
+        }
+    }
+}
+
 class RemoteService {
     private AtomicInteger callCount = new AtomicInteger(0);
 
@@ -304,4 +835,13 @@ class RemoteService {
         }
         return "Success response (call #" + count + ")";
     }
+
+    public String slowCall(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return call(true);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package circuitbreaker;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@AllArgsConstructor
+@Data
+@Builder
+public class CircuitBreakerEvent {
+    private final CircuitBreakerEventType type;
+    private final String user;
+    // State the event happened in; the state left for a transition
+    private final CircuitBreakerState state;
+    // Only set for STATE_TRANSITION
+    private final CircuitBreakerState toState;
+    private final boolean slowCall;
+    // Call duration for SUCCESS and FAILURE, 0 otherwise
+    private final long durationNanos;
+    private final long timestampMs;
+}
@@ -0,0 +1,118 @@
+package circuitbreaker;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers breaker events to observers on one background thread.
+ *
+ * Breakers only offer events to a bounded lock-free buffer; when it is full
+ * the event is dropped and counted instead of making the call wait, so a slow
+ * observer can never stall {@code call()}. One dispatcher is shared by every
+ * breaker in a {@link CircuitBreakerRegistry}, and breakers built on their own
+ * share {@link #shared()}.
+ */
+public class CircuitBreakerEventDispatcher implements AutoCloseable {
+
+    private static final int DEFAULT_CAPACITY = 10_000;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static volatile CircuitBreakerEventDispatcher shared;
+
+    private final int capacity;
+    private final ConcurrentLinkedQueue<Delivery> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    private static final class Delivery {
+        private final IObserver observer;
+        private final CircuitBreakerEvent event;
+
+        private Delivery(IObserver observer, CircuitBreakerEvent event) {
+            this.observer = observer;
+            this.event = event;
+        }
+    }
+
+    public CircuitBreakerEventDispatcher() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CircuitBreakerEventDispatcher(int capacity) {
+        this.capacity = capacity;
+        this.worker = new Thread(this::run, "circuit-breaker-events");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public static CircuitBreakerEventDispatcher shared() {
+        CircuitBreakerEventDispatcher instance = shared;
+        if (instance == null) {
+            synchronized (CircuitBreakerEventDispatcher.class) {
+                instance = shared;
+                if (instance == null) {
+                    instance = new CircuitBreakerEventDispatcher();
+                    shared = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return false if the buffer was full and the event was dropped
+     */
+    public boolean dispatch(IObserver observer, CircuitBreakerEvent event) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+        buffer.offer(new Delivery(observer, event));
+        if (idle) {
+            LockSupport.unpark(worker);
+        }
+        return true;
+    }
+
+    private void run() {
+        while (running) {
+            Delivery delivery = buffer.poll();
+            if (delivery == null) {
+                idle = true;
+                // Recheck so an event offered just before idle was set is not left waiting
+                if (buffer.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+                continue;
+            }
+            size.decrementAndGet();
+            try {
+                delivery.observer.onEvent(delivery.event);
+            } catch (Exception e) {
+                System.err.println("Error in circuit breaker observer: " + e);
+            }
+        }
+    }
+
+    public int getBufferedCount() {
+        return size.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+}
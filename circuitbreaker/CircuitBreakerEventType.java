@@ -0,0 +1,9 @@
+package circuitbreaker;
+
+public enum CircuitBreakerEventType {
+    SUCCESS,
+    FAILURE,
+    CALL_NOT_PERMITTED,
+    BULKHEAD_FULL,
+    STATE_TRANSITION
+}
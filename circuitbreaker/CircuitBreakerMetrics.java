@@ -1,4 +1,120 @@
 package circuitbreaker;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live metrics of one circuit breaker. Counters are striped and the rates are
+ * read from the breaker's failure window, so reading never blocks calls.
+ */
 public class CircuitBreakerMetrics {
+
+    private final IFailureCounterStrategy failureCounterStrategy;
+    private final CircuitBreakerContext context;
+
+    private final LongAdder successfulCalls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+    private final LongAdder notPermittedCalls = new LongAdder();
+    private final LongAdder bulkheadFullCalls = new LongAdder();
+    private final CallLatencyHistogram callLatency = new CallLatencyHistogram();
+
+    // Time spent in each state before the current one, indexed by ordinal
+    private final AtomicLongArray nanosInState = new AtomicLongArray(CircuitBreakerState.values().length);
+    private final AtomicLong stateEnteredAtNanos;
+
+    CircuitBreakerMetrics(IFailureCounterStrategy failureCounterStrategy, CircuitBreakerContext context) {
+        this.failureCounterStrategy = failureCounterStrategy;
+        this.context = context;
+        this.stateEnteredAtNanos = new AtomicLong(context.getTimeSource().nanoTime());
+    }
+
+    void recordCall(boolean failure, boolean slow, long durationNanos) {
+        if (failure) {
+            failedCalls.increment();
+        } else {
+            successfulCalls.increment();
+        }
+        if (slow) {
+            slowCalls.increment();
+        }
+        callLatency.record(durationNanos);
+    }
+
+    void recordNotPermitted() {
+        notPermittedCalls.increment();
+    }
+
+    void recordBulkheadFull() {
+        bulkheadFullCalls.increment();
+    }
+
+    void recordTransition(CircuitBreakerState from) {
+        long now = context.getTimeSource().nanoTime();
+        nanosInState.addAndGet(from.ordinal(), now - stateEnteredAtNanos.getAndSet(now));
+    }
+
+    public long getSuccessfulCalls() {
+        return successfulCalls.sum();
+    }
+
+    public long getFailedCalls() {
+        return failedCalls.sum();
+    }
+
+    public long getSlowCalls() {
+        return slowCalls.sum();
+    }
+
+    public long getNotPermittedCalls() {
+        return notPermittedCalls.sum();
+    }
+
+    /**
+     * Calls a bulkhead in front of the breaker rejected; they never reach the window
+     */
+    public long getBulkheadFullCalls() {
+        return bulkheadFullCalls.sum();
+    }
+
+    /**
+     * Failure rate in percent over the breaker's current window, 0 when it is empty
+     */
+    public float getFailureRate() {
+        long calls = failureCounterStrategy.countCalls(context);
+        return calls == 0 ? 0 : failureCounterStrategy.countFailures(context) * 100f / calls;
+    }
+
+    /**
+     * Slow-call rate in percent over the breaker's current window, 0 when it is empty
+     */
+    public float getSlowCallRate() {
+        long calls = failureCounterStrategy.countCalls(context);
+        return calls == 0 ? 0 : failureCounterStrategy.countSlowCalls(context) * 100f / calls;
+    }
+
+    /**
+     * Total time spent in the state, including the ongoing stay if it is the current one
+     */
+    public long getTimeInStateNanos(CircuitBreakerState state) {
+        long total = nanosInState.get(state.ordinal());
+        if (context.getCurrentState() == state) {
+            total += context.getTimeSource().nanoTime() - stateEnteredAtNanos.get();
+        }
+        return total;
+    }
+
+    public CallLatencyHistogram getCallLatency() {
+        return callLatency;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("successful=%d, failed=%d, slow=%d, notPermitted=%d, bulkheadFull=%d, "
+                        + "failureRate=%.1f%%, p99=%dus",
+                getSuccessfulCalls(), getFailedCalls(), getSlowCalls(), getNotPermittedCalls(),
+                getBulkheadFullCalls(), getFailureRate(), callLatency.getPercentileNanos(0.99) / 1000);
+    }
 }
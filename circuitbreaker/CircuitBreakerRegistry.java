@@ -0,0 +1,153 @@
+package circuitbreaker;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Breakers by key (e.g. downstream host), created on first use.
+ *
+ * Breakers own no threads, since OPEN to HALF_OPEN is checked on access, and
+ * all of them publish events through one shared dispatcher, so thousands of
+ * them cost only memory. Breakers that have not been used for
+ * {@code idleExpiryMs} are dropped by a sweep that runs inline when a new key
+ * is added, at most once per expiry period. Only CLOSED breakers are dropped,
+ * so an idle key never loses an OPEN breaker's protection.
+ */
+public class CircuitBreakerRegistry {
+
+    private final ConcurrentHashMap<String, Entry> breakers = new ConcurrentHashMap<>();
+    private final Function<String, CircuitBreakerConfig> configForKey;
+    private final long idleExpiryMs;
+    private final TimeSource timeSource;
+    private final AtomicLong lastSweepAt;
+    private final CircuitBreakerEventDispatcher eventDispatcher = new CircuitBreakerEventDispatcher();
+    private volatile IObserver observer;
+
+    private static final class Entry {
+        private final CircuitBreaker breaker;
+        private volatile long lastAccessMs;
+
+        private Entry(CircuitBreaker breaker, long now) {
+            this.breaker = breaker;
+            this.lastAccessMs = now;
+        }
+    }
+
+    /**
+     * Idle time is measured with the config's time source.
+     *
+     * @param idleExpiryMs drop CLOSED breakers unused for this long (0 keeps them)
+     */
+    public CircuitBreakerRegistry(CircuitBreakerConfig defaultConfig, long idleExpiryMs) {
+        this(key -> defaultConfig, idleExpiryMs, defaultConfig.getTimeSourceOrDefault());
+    }
+
+    public CircuitBreakerRegistry(Function<String, CircuitBreakerConfig> configForKey, long idleExpiryMs) {
+        this(configForKey, idleExpiryMs, SystemTimeSource.INSTANCE);
+    }
+
+    /**
+     * @param timeSource clock for idle tracking and sweeps, normally the one the breakers' configs use
+     */
+    public CircuitBreakerRegistry(Function<String, CircuitBreakerConfig> configForKey, long idleExpiryMs,
+                                  TimeSource timeSource) {
+        this.configForKey = configForKey;
+        this.idleExpiryMs = idleExpiryMs;
+        this.timeSource = timeSource;
+        this.lastSweepAt = new AtomicLong(timeSource.millis());
+    }
+
+    public CircuitBreaker getOrCreate(String key) {
+        long now = timeSource.millis();
+        Entry entry = breakers.get(key);
+        if (entry == null) {
+            sweepIfDue(now);
+            entry = breakers.computeIfAbsent(key, k -> new Entry(newBreaker(k), now));
+        } else if (entry.lastAccessMs != now) {
+            entry.lastAccessMs = now;
+        }
+        return entry.breaker;
+    }
+
+    private CircuitBreaker newBreaker(String key) {
+        CircuitBreaker breaker = new CircuitBreaker(configForKey.apply(key), key, eventDispatcher);
+        IObserver currentObserver = observer;
+        if (currentObserver != null) {
+            breaker.registerObserver(currentObserver);
+        }
+        return breaker;
+    }
+
+    /**
+     * Returns the breaker without creating it or refreshing its last access time.
+     */
+    public CircuitBreaker get(String key) {
+        Entry entry = breakers.get(key);
+        return entry != null ? entry.breaker : null;
+    }
+
+    public void remove(String key) {
+        breakers.remove(key);
+    }
+
+    /**
+     * Observer for every breaker, existing and future
+     */
+    public void registerObserver(IObserver observer) {
+        this.observer = observer;
+        breakers.values().forEach(entry -> entry.breaker.registerObserver(observer));
+    }
+
+    /**
+     * Drops every CLOSED breaker idle for longer than the configured expiry.
+     *
+     * @return number of breakers removed
+     */
+    public int evictIdle() {
+        return idleExpiryMs > 0 ? removeIdleSince(timeSource.millis() - idleExpiryMs) : 0;
+    }
+
+    private void sweepIfDue(long now) {
+        if (idleExpiryMs <= 0) {
+            return;
+        }
+        long lastSweep = lastSweepAt.get();
+        // Only one thread sweeps per expiry period
+        if (now - lastSweep >= idleExpiryMs && lastSweepAt.compareAndSet(lastSweep, now)) {
+            removeIdleSince(now - idleExpiryMs);
+        }
+    }
+
+    private int removeIdleSince(long cutoff) {
+        int removed = 0;
+        Iterator<Map.Entry<String, Entry>> it = breakers.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            Entry entry = e.getValue();
+            if (entry.lastAccessMs < cutoff
+                    && entry.breaker.getCurrentState() == CircuitBreakerState.CLOSED
+                    && breakers.remove(e.getKey(), entry)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return breakers.size();
+    }
+
+    public CircuitBreakerEventDispatcher getEventDispatcher() {
+        return eventDispatcher;
+    }
+
+    /**
+     * Stops the event dispatcher; events still buffered are not delivered.
+     */
+    public void shutdown() {
+        eventDispatcher.close();
+    }
+}
@@ -0,0 +1,384 @@
+package circuitbreaker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Deterministic simulation and load test for the circuit breaker.
+ *
+ * Scripted failure patterns are played against many simulated clients on a
+ * {@link ManualTimeSource}, so a minute of traffic with OPEN timeouts runs in
+ * milliseconds and every run sees the same calls. Contention checks hammer one
+ * breaker from real threads on the same virtual clock, and the last part
+ * measures what {@code call()} adds over calling the supplier directly.
+ *
+ * Prints each check and exits with status 1 if any of them fails.
+ */
+public class CircuitBreakerSimulation {
+
+    private static final long TICK_MS = 100;
+    private static final int CLIENTS = 200;
+    private static final int THREADS = 16;
+
+    private static int checks;
+    private static int failedChecks;
+    // Read by the measured supplier; volatile so the JIT cannot fold the direct loop into one multiply
+    private static volatile int payload = 1;
+
+    /**
+     * Whether the dependency fails a call made at the given virtual time
+     */
+    interface FailurePattern {
+        boolean fails(long elapsedMs, Random random);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long start = System.nanoTime();
+
+        System.out.println("=== Circuit Breaker Simulation ===\n");
+        simulateOutageAndRecovery();
+        simulateErrorRates();
+        checkTripUnderContention();
+        checkHalfOpenUnderContention();
+        measureHotPathOverhead();
+
+        System.out.printf("%n=== %d/%d checks passed in %dms ===%n", checks - failedChecks, checks,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (failedChecks > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static CircuitBreakerConfig.CircuitBreakerConfigBuilder rateConfig(TimeSource timeSource) {
+        return CircuitBreakerConfig.builder()
+                .slidingWindowType(SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(50)
+                .failureRateThreshold(50)
+                .minimumNumberOfCalls(20)
+                .timeoutInMs(5000)
+                .allowedRequestsInHalfOpen(3)
+                .allowedFailureRequestInHalfOpen(2)
+                .timeSource(timeSource);
+    }
+
+    /**
+     * Healthy for 10s, down for 30s, healthy again, with 200 clients calling every 100ms
+     */
+    private static void simulateOutageAndRecovery() {
+        System.out.println("--- Outage From 10s To 40s, 200 Clients, 60s Of Virtual Time ---");
+        ManualTimeSource clock = new ManualTimeSource();
+        CircuitBreaker cb = new CircuitBreaker(rateConfig(clock).build(), "outage");
+        FailurePattern outage = (elapsedMs, random) -> elapsedMs >= 10_000 && elapsedMs < 40_000;
+
+        List<Long> transitionTimes = new ArrayList<>();
+        List<CircuitBreakerState> toStates = new ArrayList<>();
+        CircuitBreakerState last = CircuitBreakerState.CLOSED;
+        int callsWhileOpen = 0;
+        int maxTrialCalls = 0;
+        int trialCalls = 0;
+        Random random = new Random(42);
+
+        for (long elapsedMs = 0; elapsedMs < 60_000; elapsedMs += TICK_MS) {
+            boolean failing = outage.fails(elapsedMs, random);
+            for (int client = 0; client < CLIENTS; client++) {
+                // Reading the state is what moves OPEN to HALF_OPEN once the timeout is up
+                CircuitBreakerState before = cb.getCurrentState();
+                if (before != last) {
+                    transitionTimes.add(elapsedMs);
+                    toStates.add(before);
+                    trialCalls = 0;
+                }
+                boolean[] ran = new boolean[1];
+                try {
+                    cb.call(() -> {
+                        ran[0] = true;
+                        if (failing) {
+                            throw new RuntimeException("down");
+                        }
+                        return "ok";
+                    });
+                } catch (RuntimeException e) {
+                    // Failures and rejections are both expected here
+                }
+                if (ran[0] && before == CircuitBreakerState.OPEN) {
+                    callsWhileOpen++;
+                }
+                if (ran[0] && before == CircuitBreakerState.HALF_OPEN) {
+                    maxTrialCalls = Math.max(maxTrialCalls, ++trialCalls);
+                }
+                last = cb.getCurrentState();
+                if (last != before) {
+                    transitionTimes.add(elapsedMs);
+                    toStates.add(last);
+                }
+            }
+            clock.advanceMillis(TICK_MS);
+        }
+
+        long firstOpenAt = -1;
+        long lastCloseAt = -1;
+        int halfOpens = 0;
+        for (int i = 0; i < toStates.size(); i++) {
+            if (toStates.get(i) == CircuitBreakerState.OPEN && firstOpenAt < 0) {
+                firstOpenAt = transitionTimes.get(i);
+            }
+            if (toStates.get(i) == CircuitBreakerState.HALF_OPEN) {
+                halfOpens++;
+            }
+            if (toStates.get(i) == CircuitBreakerState.CLOSED) {
+                lastCloseAt = transitionTimes.get(i);
+            }
+        }
+        System.out.println("  Transitions: " + toStates.size() + ", metrics: " + cb.getMetrics());
+        check(firstOpenAt == 10_000, "Opens in the first tick of the outage (opened at " + firstOpenAt + "ms)");
+        check(callsWhileOpen == 0, "No call reaches the dependency while OPEN (" + callsWhileOpen + " did)");
+        check(maxTrialCalls <= 3, "At most 3 trial calls per HALF_OPEN (max " + maxTrialCalls + ")");
+        // Probes at 15, 20, 25, 30, 35 and 40s; the last one finds the dependency healthy
+        check(halfOpens == 6, "Probes every 5s until recovery (" + halfOpens + " HALF_OPEN periods)");
+        check(lastCloseAt >= 40_000 && lastCloseAt <= 45_000,
+                "Closes within one OPEN timeout of recovery (closed at " + lastCloseAt + "ms)");
+        check(cb.getCurrentState() == CircuitBreakerState.CLOSED, "Ends CLOSED");
+    }
+
+    /**
+     * Random errors below the 50% threshold must never trip the breaker; errors above it must
+     */
+    private static void simulateErrorRates() {
+        System.out.println("\n--- Random Error Rates Against A 50% Threshold, 20s Of Virtual Time ---");
+        check(tripsAt(0.3) == 0, "30% errors never trip the breaker");
+        check(tripsAt(0.7) > 0, "70% errors trip the breaker");
+    }
+
+    private static int tripsAt(double errorRate) {
+        ManualTimeSource clock = new ManualTimeSource();
+        // Large window so sampling noise stays well away from the threshold
+        CircuitBreaker cb = new CircuitBreaker(rateConfig(clock).slidingWindowSize(1000).build(), "errors");
+        FailurePattern pattern = (elapsedMs, random) -> random.nextDouble() < errorRate;
+        Random random = new Random(7);
+        int trips = 0;
+        for (long elapsedMs = 0; elapsedMs < 20_000; elapsedMs += TICK_MS) {
+            for (int client = 0; client < CLIENTS; client++) {
+                boolean fails = pattern.fails(elapsedMs, random);
+                CircuitBreakerState before = cb.getCurrentState();
+                try {
+                    cb.call(() -> {
+                        if (fails) {
+                            throw new RuntimeException("error");
+                        }
+                        return "ok";
+                    });
+                } catch (RuntimeException e) {
+                    // Expected
+                }
+                if (before != CircuitBreakerState.OPEN && cb.getCurrentState() == CircuitBreakerState.OPEN) {
+                    trips++;
+                }
+            }
+            clock.advanceMillis(TICK_MS);
+        }
+        return trips;
+    }
+
+    /**
+     * 16 threads fail at once: the breaker must open exactly once and stop
+     * letting calls through right after
+     */
+    private static void checkTripUnderContention() throws InterruptedException {
+        System.out.println("\n--- 16 Threads x 10,000 Failing Calls ---");
+        ManualTimeSource clock = new ManualTimeSource();
+        CircuitBreakerEventDispatcher dispatcher = new CircuitBreakerEventDispatcher(1_000_000);
+        AtomicInteger transitions = new AtomicInteger();
+        CircuitBreaker observed = new CircuitBreaker(rateConfig(clock).build(), "contended", dispatcher);
+        observed.registerObserver(new IObserver() {
+            @Override
+            public void registerMetrics(CircuitBreakerMetrics circuitBreakerMetrics) {
+            }
+
+            @Override
+            public void onEvent(CircuitBreakerEvent event) {
+                if (event.getType() == CircuitBreakerEventType.STATE_TRANSITION) {
+                    transitions.incrementAndGet();
+                }
+            }
+        });
+
+        AtomicInteger reached = new AtomicInteger();
+        Supplier<String> failing = () -> {
+            reached.incrementAndGet();
+            throw new RuntimeException("down");
+        };
+        runConcurrently(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                try {
+                    observed.call(failing);
+                } catch (RuntimeException e) {
+                    // Expected
+                }
+            }
+        });
+        while (dispatcher.getBufferedCount() > 0) {
+            Thread.sleep(1);
+        }
+        dispatcher.close();
+
+        System.out.println("  Calls reaching the dependency: " + reached.get() + " of " + THREADS * 10_000);
+        check(transitions.get() == 1, "Exactly one transition (" + transitions.get() + ")");
+        check(reached.get() <= 20 + THREADS,
+                "At most the tripping calls plus one in-flight call per thread get through (" + reached.get() + ")");
+        check(observed.getMetrics().getNotPermittedCalls() == THREADS * 10_000L - reached.get(),
+                "Every other call is counted as not permitted");
+        check(observed.getCurrentState() == CircuitBreakerState.OPEN, "Stays OPEN while the virtual clock stands still");
+    }
+
+    /**
+     * 200 rounds of trip, wait out the timeout, then 16 threads racing for the
+     * 3 trial calls while those calls are held in flight
+     */
+    private static void checkHalfOpenUnderContention() throws InterruptedException {
+        System.out.println("\n--- 200 Rounds Of 16 Threads Racing For 3 HALF_OPEN Trial Calls ---");
+        ManualTimeSource clock = new ManualTimeSource();
+        CircuitBreaker cb = new CircuitBreaker(rateConfig(clock).build(), "half-open");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        int maxAdmitted = 0;
+        int roundsNotClosed = 0;
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 20; i++) {
+                try {
+                    cb.call(() -> {
+                        throw new RuntimeException("down");
+                    });
+                } catch (RuntimeException e) {
+                    // Trips the breaker
+                }
+            }
+            clock.advanceMillis(5000);
+
+            AtomicInteger admitted = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                executor.submit(() -> {
+                    try {
+                        cb.call(() -> {
+                            admitted.incrementAndGet();
+                            try {
+                                release.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return "ok";
+                        });
+                    } catch (CircuitBreakerOpenException e) {
+                        rejected.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            // Hold the trial calls until every thread has either got in or been turned away
+            while (admitted.get() + rejected.get() < THREADS) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            done.await();
+
+            maxAdmitted = Math.max(maxAdmitted, admitted.get());
+            if (cb.getCurrentState() != CircuitBreakerState.CLOSED) {
+                roundsNotClosed++;
+            }
+        }
+        executor.shutdown();
+
+        check(maxAdmitted == 3, "Never more than 3 trial calls in flight (max " + maxAdmitted + ")");
+        check(roundsNotClosed == 0, "Every round closes after 3 successful trials (" + roundsNotClosed + " did not)");
+    }
+
+    /**
+     * Nanoseconds per call for the supplier alone and through the breaker, on
+     * the real clock, single-threaded and from all threads at once
+     */
+    private static void measureHotPathOverhead() throws InterruptedException {
+        System.out.println("\n--- Hot Path Overhead (System.nanoTime clock, no observer) ---");
+        CircuitBreaker cb = new CircuitBreaker(rateConfig(null).slidingWindowSize(100).build(), "hot");
+        AtomicInteger sink = new AtomicInteger();
+        Supplier<Integer> supplier = () -> payload;
+        int calls = 2_000_000;
+
+        for (int warmup = 0; warmup < 3; warmup++) {
+            direct(supplier, calls, sink);
+            viaBreaker(cb, supplier, calls, sink);
+        }
+        double directNs = direct(supplier, calls, sink);
+        double breakerNs = viaBreaker(cb, supplier, calls, sink);
+        System.out.printf("  1 thread:   direct %.1f ns/call, through call() %.1f ns/call%n", directNs, breakerNs);
+
+        long start = System.nanoTime();
+        runConcurrently(() -> viaBreaker(cb, supplier, calls / THREADS, sink));
+        double contendedNs = (double) (System.nanoTime() - start) / calls;
+        System.out.printf("  %d threads: %.1f ns/call of wall time across all threads (%d cores)%n",
+                THREADS, contendedNs, Runtime.getRuntime().availableProcessors());
+        check(cb.getMetrics().getFailedCalls() == 0 && cb.getCurrentState() == CircuitBreakerState.CLOSED,
+                "Successful calls keep the breaker CLOSED");
+        // Every supplied value lands in the sink, so neither loop's work can be discarded
+        check(sink.get() == 9 * calls, "Sink holds every supplied value (" + sink.get() + ")");
+    }
+
+    private static double direct(Supplier<Integer> supplier, int calls, AtomicInteger sink) {
+        long start = System.nanoTime();
+        int sum = 0;
+        for (int i = 0; i < calls; i++) {
+            sum += supplier.get();
+        }
+        sink.addAndGet(sum);
+        return (double) (System.nanoTime() - start) / calls;
+    }
+
+    private static double viaBreaker(CircuitBreaker cb, Supplier<Integer> supplier, int calls, AtomicInteger sink) {
+        long start = System.nanoTime();
+        int sum = 0;
+        for (int i = 0; i < calls; i++) {
+            sum += cb.call(supplier);
+        }
+        sink.addAndGet(sum);
+        return (double) (System.nanoTime() - start) / calls;
+    }
+
+    private static void runConcurrently(Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run();
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        checks++;
+        if (!condition) {
+            failedChecks++;
+        }
+        System.out.println((condition ? "  PASS " : "  FAIL ") + description);
+    }
+}
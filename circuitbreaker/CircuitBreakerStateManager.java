@@ -25,7 +25,25 @@ public abstract class CircuitBreakerStateManager {
      */
     public abstract boolean allowRequest(CircuitBreakerContext circuitBreakerContext);
 
+    /**
+     * Returns a permission granted by {@link #allowRequest} for a call that never ran
+     */
+    public void releasePermission(CircuitBreakerContext circuitBreakerContext) {
+    }
+
     public int countFailures(CircuitBreakerContext circuitBreakerContext) {
         return failureCounterStrategy.countFailures(circuitBreakerContext);
     }
+
+    public long countCalls(CircuitBreakerContext circuitBreakerContext) {
+        return failureCounterStrategy.countCalls(circuitBreakerContext);
+    }
+
+    public int countSlowCalls(CircuitBreakerContext circuitBreakerContext) {
+        return failureCounterStrategy.countSlowCalls(circuitBreakerContext);
+    }
+
+    protected void resetFailureCounter() {
+        failureCounterStrategy.reset();
+    }
 }
\ No newline at end of file
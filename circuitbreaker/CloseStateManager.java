@@ -13,13 +13,23 @@ public class CloseStateManager extends CircuitBreakerStateManager {
 
     @Override
     public CircuitBreakerState getNext(CircuitBreakerContext circuitBreakerContext) {
-        if (!circuitBreakerContext.getCurrentState().equals(CircuitBreakerState.CLOSED)) {
-            throw new IllegalStateException("Internal state doesn't match with invoked method");
+        var config = circuitBreakerContext.getCircuitBreakerConfig();
+        var countFailures = super.countFailures(circuitBreakerContext);
+        if (config.getThreshold() > 0 && countFailures >= config.getThreshold()) {
+            return CircuitBreakerState.OPEN;
         }
 
-        var countFailures = super.countFailures(circuitBreakerContext);
-        if (countFailures >= circuitBreakerContext.getCircuitBreakerConfig().getThreshold()) {
-            System.out.println("Failure threshold breached. Transitioning to OPEN");
+        // Rates are only meaningful once the window holds enough calls
+        long calls = super.countCalls(circuitBreakerContext);
+        if (calls == 0 || calls < config.getMinimumNumberOfCalls()) {
+            return CircuitBreakerState.CLOSED;
+        }
+        if (config.getFailureRateThreshold() > 0
+                && countFailures * 100f / calls >= config.getFailureRateThreshold()) {
+            return CircuitBreakerState.OPEN;
+        }
+        if (config.getSlowCallRateThreshold() > 0
+                && super.countSlowCalls(circuitBreakerContext) * 100f / calls >= config.getSlowCallRateThreshold()) {
             return CircuitBreakerState.OPEN;
         }
         return CircuitBreakerState.CLOSED;
@@ -27,13 +37,13 @@ public class CloseStateManager extends CircuitBreakerStateManager {
 
     @Override
     public void onEnter(CircuitBreakerContext circuitBreakerContext) {
-        System.out.println("→ Entered CLOSED state - Normal operation");
         // Reset window context using proper atomic operations
         var windowContext = circuitBreakerContext.getWindowContext();
         windowContext.getCurrentWindowCount().set(0);
         windowContext.getLastWindowCount().set(0);
         windowContext.getTotalRequestsInCurrentWindow().set(0);
-        windowContext.getCurrentWindowStartTime().set(System.currentTimeMillis());
+        windowContext.getCurrentWindowStartTime().set(circuitBreakerContext.getTimeSource().millis());
+        resetFailureCounter();
     }
 
     @Override
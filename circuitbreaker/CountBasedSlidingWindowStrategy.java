@@ -0,0 +1,78 @@
+package circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Count-based sliding window over the last N calls
+ *
+ * Outcomes live in a ring of N ints (bit flags for failure and slow). Each call
+ * claims the next slot, swaps its outcome in and adjusts running failure and
+ * slow-call totals by the difference from the outcome it replaced, so
+ * recording and counting are O(1) with no allocation.
+ */
+public class CountBasedSlidingWindowStrategy implements IFailureCounterStrategy {
+
+    private static final int FAILURE = 1;
+    private static final int SLOW = 2;
+
+    private final int windowSize;
+    private final AtomicIntegerArray outcomes;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger slowCalls = new AtomicInteger();
+
+    public CountBasedSlidingWindowStrategy(int windowSize) {
+        this.windowSize = windowSize;
+        this.outcomes = new AtomicIntegerArray(windowSize);
+    }
+
+    @Override
+    public int countFailures(CircuitBreakerContext circuitBreakerContext) {
+        return failures.get();
+    }
+
+    @Override
+    public long countCalls(CircuitBreakerContext circuitBreakerContext) {
+        return Math.min(calls.get(), windowSize);
+    }
+
+    @Override
+    public int countSlowCalls(CircuitBreakerContext circuitBreakerContext) {
+        return slowCalls.get();
+    }
+
+    @Override
+    public void record(CircuitBreakerContext circuitBreakerContext, boolean isFailure, boolean isSlow) {
+        int outcome = (isFailure ? FAILURE : 0) | (isSlow ? SLOW : 0);
+        int slot = (int) (calls.getAndIncrement() % windowSize);
+        int replaced = outcomes.getAndSet(slot, outcome);
+
+        int failureDelta = (outcome & FAILURE) - (replaced & FAILURE);
+        if (failureDelta != 0) {
+            failures.addAndGet(failureDelta);
+        }
+        int slowDelta = ((outcome & SLOW) - (replaced & SLOW)) / SLOW;
+        if (slowDelta != 0) {
+            slowCalls.addAndGet(slowDelta);
+        }
+
+        // Update context for compatibility (HALF_OPEN state uses this)
+        long currentTime = circuitBreakerContext.getCurrentTime().get();
+        var windowContext = circuitBreakerContext.getWindowContext();
+        windowContext.getTotalRequestsInCurrentWindow().set(countCalls(circuitBreakerContext));
+        windowContext.getCurrentWindowCount().set(failures.get());
+        windowContext.getLastRequestedAtInMs().set(currentTime);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < windowSize; i++) {
+            outcomes.set(i, 0);
+        }
+        calls.set(0);
+        failures.set(0);
+        slowCalls.set(0);
+    }
+}
@@ -1,7 +1,12 @@
 package circuitbreaker;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class FixedWindowCountStrategy implements IFailureCounterStrategy {
 
+    // Slow calls in the current window, reset together with the window counters
+    private final AtomicLong slowCalls = new AtomicLong();
+
     @Override
     public int countFailures(CircuitBreakerContext circuitBreakerContext) {
         var windowContext = circuitBreakerContext.getWindowContext();
@@ -19,6 +24,7 @@ public class FixedWindowCountStrategy implements IFailureCounterStrategy {
                 long oldCount = windowContext.getCurrentWindowCount().getAndSet(0);
                 windowContext.getLastWindowCount().set(oldCount);
                 windowContext.getTotalRequestsInCurrentWindow().set(0);
+                slowCalls.set(0);
             }
             return 0;
         }
@@ -26,30 +32,43 @@ public class FixedWindowCountStrategy implements IFailureCounterStrategy {
         return Math.toIntExact(windowContext.getCurrentWindowCount().get());
     }
 
-    public void recordFailure(CircuitBreakerContext circuitBreakerContext) {
-        var windowContext = circuitBreakerContext.getWindowContext();
-        long currentTime = System.currentTimeMillis();
-        circuitBreakerContext.getCurrentTime().set(currentTime);
-
-        // Check if window expired before recording
+    @Override
+    public long countCalls(CircuitBreakerContext circuitBreakerContext) {
+        // Roll the window first if it has expired
         countFailures(circuitBreakerContext);
+        return circuitBreakerContext.getWindowContext().getTotalRequestsInCurrentWindow().get();
+    }
 
-        // Atomically increment counters
-        windowContext.getCurrentWindowCount().incrementAndGet();
-        windowContext.getTotalRequestsInCurrentWindow().incrementAndGet();
-        windowContext.getLastRequestedAtInMs().set(currentTime);
+    @Override
+    public int countSlowCalls(CircuitBreakerContext circuitBreakerContext) {
+        countFailures(circuitBreakerContext);
+        return Math.toIntExact(slowCalls.get());
     }
 
-    public void recordSuccess(CircuitBreakerContext circuitBreakerContext) {
+    @Override
+    public void record(CircuitBreakerContext circuitBreakerContext, boolean isFailure, boolean isSlow) {
         var windowContext = circuitBreakerContext.getWindowContext();
-        long currentTime = System.currentTimeMillis();
-        circuitBreakerContext.getCurrentTime().set(currentTime);
+        long currentTime = circuitBreakerContext.getCurrentTime().get();
 
         // Check if window expired before recording
         countFailures(circuitBreakerContext);
 
-        // Only increment total request count (not failure count)
+        // Atomically increment counters
+        if (isFailure) {
+            windowContext.getCurrentWindowCount().incrementAndGet();
+        }
+        if (isSlow) {
+            slowCalls.incrementAndGet();
+        }
         windowContext.getTotalRequestsInCurrentWindow().incrementAndGet();
         windowContext.getLastRequestedAtInMs().set(currentTime);
     }
-}
\ No newline at end of file
+
+    /**
+     * The window counters live in the context and are reset by the state managers
+     */
+    @Override
+    public void reset() {
+        slowCalls.set(0);
+    }
+}
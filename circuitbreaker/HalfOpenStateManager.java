@@ -1,7 +1,12 @@
 package circuitbreaker;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class HalfOpenStateManager extends CircuitBreakerStateManager {
 
+    // Trial calls let through since entering HALF_OPEN, claimed with a CAS so concurrent callers cannot overshoot
+    private final AtomicInteger permittedCalls = new AtomicInteger();
+
     protected HalfOpenStateManager(IFailureCounterStrategy failureCounterStrategy) {
         super(failureCounterStrategy);
     }
@@ -20,31 +25,15 @@ public class HalfOpenStateManager extends CircuitBreakerStateManager {
         long failures = windowContext.getCurrentWindowCount().get();
         long successes = totalRequests - failures;
 
-        System.out.println("  [HALF_OPEN] Total: " + totalRequests +
-                ", Successes: " + successes +
-                ", Failures: " + failures);
-
         // Check if too many failures
         if (failures >= config.getAllowedFailureRequestInHalfOpen()) {
-            System.out.println("Too many failures in HALF_OPEN (" + failures +
-                    " >= " + config.getAllowedFailureRequestInHalfOpen() +
-                    "). Transitioning to OPEN");
             return CircuitBreakerState.OPEN;
         }
 
         // Check if we've collected enough samples
         if (totalRequests >= config.getAllowedRequestsInHalfOpen()) {
             long requiredSuccesses = config.getAllowedRequestsInHalfOpen() - config.getAllowedFailureRequestInHalfOpen();
-
-            if (successes >= requiredSuccesses) {
-                System.out.println("Enough successes in HALF_OPEN (" + successes +
-                        " >= " + requiredSuccesses +
-                        "). Transitioning to CLOSED");
-                return CircuitBreakerState.CLOSED;
-            } else {
-                System.out.println("Not enough successes in HALF_OPEN. Transitioning to OPEN");
-                return CircuitBreakerState.OPEN;
-            }
+            return successes >= requiredSuccesses ? CircuitBreakerState.CLOSED : CircuitBreakerState.OPEN;
         }
 
         return CircuitBreakerState.HALF_OPEN;
@@ -52,19 +41,31 @@ public class HalfOpenStateManager extends CircuitBreakerStateManager {
 
     @Override
     public void onEnter(CircuitBreakerContext circuitBreakerContext) {
-        System.out.println("→ Entered HALF_OPEN state - Testing with limited requests");
         var windowContext = circuitBreakerContext.getWindowContext();
         windowContext.getCurrentWindowCount().set(0);
         windowContext.getLastWindowCount().set(0);
         windowContext.getTotalRequestsInCurrentWindow().set(0);
-        windowContext.getCurrentWindowStartTime().set(System.currentTimeMillis());
+        windowContext.getCurrentWindowStartTime().set(circuitBreakerContext.getTimeSource().millis());
+        resetFailureCounter();
+        permittedCalls.set(0);
     }
 
     @Override
     public boolean allowRequest(CircuitBreakerContext circuitBreakerContext) {
-        long totalRequests = circuitBreakerContext.getWindowContext().getTotalRequestsInCurrentWindow().get();
         int allowedRequests = circuitBreakerContext.getCircuitBreakerConfig().getAllowedRequestsInHalfOpen();
+        while (true) {
+            int permitted = permittedCalls.get();
+            if (permitted >= allowedRequests) {
+                return false;
+            }
+            if (permittedCalls.compareAndSet(permitted, permitted + 1)) {
+                return true;
+            }
+        }
+    }
 
-        return totalRequests < allowedRequests;
+    @Override
+    public void releasePermission(CircuitBreakerContext circuitBreakerContext) {
+        permittedCalls.updateAndGet(permitted -> Math.max(0, permitted - 1));
     }
-}
\ No newline at end of file
+}
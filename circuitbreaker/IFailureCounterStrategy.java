@@ -2,4 +2,33 @@ package circuitbreaker;
 
 public interface IFailureCounterStrategy {
     int countFailures(CircuitBreakerContext circuitBreakerContext);
+
+    /**
+     * Calls of any outcome in the current window
+     */
+    long countCalls(CircuitBreakerContext circuitBreakerContext);
+
+    /**
+     * Calls slower than the configured slow-call duration in the current window
+     */
+    int countSlowCalls(CircuitBreakerContext circuitBreakerContext);
+
+    /**
+     * Records a completed call at the context's current time, which the caller
+     * has already captured, so recording reads no clock.
+     */
+    void record(CircuitBreakerContext circuitBreakerContext, boolean isFailure, boolean isSlow);
+
+    default void recordSuccess(CircuitBreakerContext circuitBreakerContext) {
+        record(circuitBreakerContext, false, false);
+    }
+
+    default void recordFailure(CircuitBreakerContext circuitBreakerContext) {
+        record(circuitBreakerContext, true, false);
+    }
+
+    /**
+     * Clear all records (used when entering a new state)
+     */
+    void reset();
 }
@@ -2,4 +2,12 @@ package circuitbreaker;
 
 public interface IObserver {
     void registerMetrics(CircuitBreakerMetrics circuitBreakerMetrics);
+
+    /**
+     * Called for every call outcome and state transition, in order, on the
+     * event dispatcher's thread. Events are dropped rather than queued without
+     * bound if the observer falls behind.
+     */
+    default void onEvent(CircuitBreakerEvent event) {
+    }
 }
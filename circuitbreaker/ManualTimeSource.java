@@ -0,0 +1,25 @@
+package circuitbreaker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time source that only moves when told to, so simulations run without sleeping.
+ */
+public class ManualTimeSource implements TimeSource {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Override
+    public long nanoTime() {
+        return nanos.get();
+    }
+
+    public void advance(long amount, TimeUnit unit) {
+        nanos.addAndGet(unit.toNanos(amount));
+    }
+
+    public void advanceMillis(long millis) {
+        advance(millis, TimeUnit.MILLISECONDS);
+    }
+}
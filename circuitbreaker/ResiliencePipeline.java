@@ -0,0 +1,164 @@
+package circuitbreaker;
+
+import lombok.Builder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * One decorator chain over a dependency: retry, then circuit breaker, then
+ * bulkhead, then the call. Any component may be left out.
+ *
+ * The breaker is asked first so an OPEN breaker rejects without touching the
+ * bulkhead. A call the bulkhead turns away hands its breaker permission back
+ * and is counted in the breaker's metrics, not its failure window. The call
+ * is timed from the breaker's admission, with the clock read again only if
+ * the call had to wait for a bulkhead slot, and the duration fed straight to
+ * the breaker instead of each layer keeping its own clock and counters. Each retry goes through the
+ * breaker and bulkhead again, and the retry stops once the breaker is OPEN.
+ */
+@Builder
+public class ResiliencePipeline {
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Retry retry;
+
+    /**
+     * Runs the call and waits for its outcome. Without a retry or a THREAD_POOL
+     * bulkhead it runs on this thread; otherwise this thread waits for the
+     * attempt running on the retry's scheduler or the bulkhead's pool.
+     *
+     * @throws CircuitBreakerOpenException if the breaker rejects the call
+     * @throws BulkheadFullException       if no bulkhead slot frees up in time
+     */
+    public <T> T call(Supplier<T> supplier) {
+        if (retry == null && !usesThreadPool()) {
+            return attempt(supplier);
+        }
+        try {
+            return callAsync(supplier).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Like {@link #call}, but retries never block the caller. The first attempt
+     * still runs on this thread unless the bulkhead is a THREAD_POOL one.
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<T> supplier) {
+        if (retry == null) {
+            return attemptAsync(supplier);
+        }
+        return retry.executeAsync(() -> attemptAsync(supplier), circuitBreaker);
+    }
+
+    private <T> CompletableFuture<T> attemptAsync(Supplier<T> supplier) {
+        if (usesThreadPool()) {
+            return submit(supplier);
+        }
+        try {
+            return CompletableFuture.completedFuture(attempt(supplier));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private boolean usesThreadPool() {
+        return bulkhead != null && bulkhead.getType() == BulkheadType.THREAD_POOL;
+    }
+
+    private <T> T attempt(Supplier<T> supplier) {
+        long permittedAt = circuitBreaker != null ? circuitBreaker.acquirePermission() : 0;
+        boolean waited = bulkhead != null && acquireSlot();
+
+        try {
+            if (circuitBreaker == null) {
+                return supplier.get();
+            }
+            // Time spent waiting for the bulkhead is not part of the call
+            long start = waited ? circuitBreaker.nanoTime() : permittedAt;
+            try {
+                T result = supplier.get();
+                circuitBreaker.onResult(false, start);
+                return result;
+            } catch (Throwable e) {
+                // Errors too, so no exit from the call keeps its permission
+                circuitBreaker.onResult(true, start);
+                throw e;
+            }
+        } finally {
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    /**
+     * Takes a SEMAPHORE bulkhead slot, free ones first so the common case needs no clock read.
+     *
+     * @return whether the caller had to wait for the slot
+     * @throws BulkheadFullException if no slot frees up in time
+     */
+    private boolean acquireSlot() {
+        boolean waited;
+        boolean acquired;
+        try {
+            waited = !bulkhead.tryAcquireNow();
+            acquired = !waited || bulkhead.tryAcquireWaiting();
+        } catch (RuntimeException e) {
+            // The call never ran, so its permission goes back rather than holding a HALF_OPEN trial
+            if (circuitBreaker != null) {
+                circuitBreaker.releasePermission();
+            }
+            throw e;
+        }
+        if (!acquired) {
+            throw bulkheadFull();
+        }
+        return waited;
+    }
+
+    /**
+     * Runs the call once on the THREAD_POOL bulkhead's threads. The outcome is
+     * recorded on the pool thread before the returned future completes.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> supplier) {
+        if (bulkhead == null || bulkhead.getType() != BulkheadType.THREAD_POOL) {
+            throw new IllegalStateException("submit needs a THREAD_POOL bulkhead");
+        }
+        if (circuitBreaker == null) {
+            return bulkhead.submit(supplier);
+        }
+        try {
+            circuitBreaker.acquirePermission();
+        } catch (CircuitBreakerOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<T> result = bulkhead.trySubmit(() -> {
+            long start = circuitBreaker.nanoTime();
+            try {
+                T value = supplier.get();
+                circuitBreaker.onResult(false, start);
+                return value;
+            } catch (Throwable e) {
+                circuitBreaker.onResult(true, start);
+                throw e;
+            }
+        });
+        return result != null ? result : CompletableFuture.failedFuture(bulkheadFull());
+    }
+
+    private BulkheadFullException bulkheadFull() {
+        if (circuitBreaker != null) {
+            circuitBreaker.onBulkheadFull();
+        }
+        return bulkhead.full();
+    }
+}
@@ -0,0 +1,206 @@
+package circuitbreaker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Retries failed calls with exponential backoff and full jitter: each wait is
+ * drawn uniformly from zero to the backoff cap, which spreads retries from
+ * many callers instead of having them arrive in waves.
+ *
+ * Waits are scheduled, never slept, so no thread is held between attempts.
+ * Retries stop early when:
+ * <ul>
+ *   <li>the failure is a breaker or bulkhead rejection, or not matched by {@code retryOn};</li>
+ *   <li>the breaker guarding the call is OPEN, so retrying would only be rejected;</li>
+ *   <li>the retry budget is spent. Every call deposits {@code retryBudgetPercent}
+ *   of a retry and every retry withdraws one, so under a full outage retries
+ *   add at most that percentage to the load instead of multiplying it.</li>
+ * </ul>
+ */
+public class Retry {
+
+    // One retry in budget units; deposits are fractions of it, so one unit is a millionth of a retry
+    private static final long BUDGET_UNIT = 1_000_000;
+    // Retries that may be banked while traffic is healthy
+    private static final long MAX_BUDGET = 10 * BUDGET_UNIT;
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final RetryConfig config;
+    private final ScheduledExecutorService scheduler;
+    // False when the config sets no budget, so retries are limited only by maxAttempts
+    private final boolean budgetLimited;
+    private final long depositPerCall;
+    private final AtomicLong budget = new AtomicLong(MAX_BUDGET);
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retriesDeniedByBudget = new LongAdder();
+    private final LongAdder retriesSkippedWhileOpen = new LongAdder();
+
+    /**
+     * Schedules waits on CompletableFuture's shared delay scheduler
+     */
+    public Retry(RetryConfig config) {
+        this(config, null);
+    }
+
+    public Retry(RetryConfig config, ScheduledExecutorService scheduler) {
+        this.config = config;
+        this.scheduler = scheduler;
+        this.maxAttempts = Math.max(1, config.getMaxAttempts());
+        this.baseDelayMs = config.getBaseDelayMs();
+        this.maxDelayMs = config.getMaxDelayMs() > 0 ? config.getMaxDelayMs() : Long.MAX_VALUE;
+        this.budgetLimited = config.getRetryBudgetPercent() > 0;
+        // Rounded up, so a tiny budget still deposits something rather than none at all
+        this.depositPerCall = budgetLimited
+                ? Math.max(1, (long) Math.ceil(config.getRetryBudgetPercent() * (double) BUDGET_UNIT / 100)) : 0;
+    }
+
+    public <T> CompletableFuture<T> executeAsync(Supplier<? extends CompletionStage<T>> attempt) {
+        return executeAsync(attempt, null);
+    }
+
+    /**
+     * @param circuitBreaker the breaker the attempts go through, consulted before each retry (may be null)
+     * @return a future completing with the first successful attempt, or the last failure
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<? extends CompletionStage<T>> attempt,
+                                                 CircuitBreaker circuitBreaker) {
+        deposit();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        runAttempt(attempt, circuitBreaker, result, 1);
+        return result;
+    }
+
+    private <T> void runAttempt(Supplier<? extends CompletionStage<T>> attempt, CircuitBreaker circuitBreaker,
+                                CompletableFuture<T> result, int attemptNumber) {
+        CompletionStage<T> stage;
+        try {
+            stage = attempt.get();
+        } catch (Exception e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+        stage.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            if (!shouldRetry(cause, attemptNumber, circuitBreaker)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (!schedule(() -> runAttempt(attempt, circuitBreaker, result, attemptNumber + 1),
+                    backoffMs(attemptNumber))) {
+                // A shut-down scheduler must not leave the caller waiting forever
+                refund();
+                result.completeExceptionally(cause);
+                return;
+            }
+            retries.increment();
+        });
+    }
+
+    private boolean shouldRetry(Throwable cause, int attemptNumber, CircuitBreaker circuitBreaker) {
+        if (attemptNumber >= maxAttempts || !isRetryable(cause)) {
+            return false;
+        }
+        if (circuitBreaker != null && circuitBreaker.getCurrentState() == CircuitBreakerState.OPEN) {
+            retriesSkippedWhileOpen.increment();
+            return false;
+        }
+        if (!withdraw()) {
+            retriesDeniedByBudget.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isRetryable(Throwable cause) {
+        if (config.getRetryOn() != null) {
+            return config.getRetryOn().test(cause);
+        }
+        return !(cause instanceof CircuitBreakerOpenException) && !(cause instanceof BulkheadFullException);
+    }
+
+    /**
+     * Full jitter: uniform in [0, min(maxDelay, base * 2^(retry - 1))]
+     */
+    private long backoffMs(int retry) {
+        // Past 2^30 the cap has long reached any sensible maxDelay; the bound keeps the shift from overflowing
+        long cap = Math.min(maxDelayMs, baseDelayMs << Math.min(retry - 1, 30));
+        return cap > 0 ? ThreadLocalRandom.current().nextLong(cap + 1) : 0;
+    }
+
+    /**
+     * @return false if the scheduler refused the task, e.g. because it was shut down
+     */
+    private boolean schedule(Runnable task, long delayMs) {
+        try {
+            if (scheduler != null) {
+                scheduler.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+            } else {
+                CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS).execute(task);
+            }
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void deposit() {
+        if (budgetLimited && budget.get() < MAX_BUDGET) {
+            budget.accumulateAndGet(depositPerCall, (current, add) -> Math.min(MAX_BUDGET, current + add));
+        }
+    }
+
+    /**
+     * Returns a retry that was withdrawn but never ran
+     */
+    private void refund() {
+        if (budgetLimited) {
+            budget.accumulateAndGet(BUDGET_UNIT, (current, add) -> Math.min(MAX_BUDGET, current + add));
+        }
+    }
+
+    private boolean withdraw() {
+        if (!budgetLimited) {
+            return true;
+        }
+        while (true) {
+            long current = budget.get();
+            if (current < BUDGET_UNIT) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - BUDGET_UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getRetriesDeniedByBudget() {
+        return retriesDeniedByBudget.sum();
+    }
+
+    public long getRetriesSkippedWhileOpen() {
+        return retriesSkippedWhileOpen.sum();
+    }
+}
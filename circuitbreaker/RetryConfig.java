@@ -0,0 +1,22 @@
+package circuitbreaker;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.function.Predicate;
+
+@AllArgsConstructor
+@Data
+@Builder
+public class RetryConfig {
+    // Attempts including the first (0 or 1 means no retries)
+    private final int maxAttempts;
+    // The n-th retry waits a random time up to baseDelayMs * 2^(n-1), capped at maxDelayMs (0 means no cap)
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    // Retries allowed as a percentage of calls, so retries add at most that much load (0 means no limit)
+    private final float retryBudgetPercent;
+    // Failures worth retrying (null retries everything but breaker and bulkhead rejections)
+    private final Predicate<Throwable> retryOn;
+}
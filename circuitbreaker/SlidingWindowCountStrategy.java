@@ -1,111 +1,185 @@
 package circuitbreaker;
 
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Sliding window counter strategy - more accurate than fixed window
  * Continuously tracks requests within the time window
+ *
+ * The window is a ring of time-slice buckets holding success, failure and
+ * slow-call counters, plus running totals over the whole ring. Recording is a
+ * few atomic adds and counting reads the totals, so both are O(1) and
+ * allocate nothing.
+ * When time moves into a new slice, the thread that advances the head epoch
+ * recycles the expired buckets and subtracts their counts from the totals.
+ *
+ * The window slides in steps of one bucket, so it covers between
+ * (buckets - 1) and buckets slices. A call recorded in the instant its bucket
+ * is recycled can be lost; the totals stay consistent with the buckets.
  */
 public class SlidingWindowCountStrategy implements IFailureCounterStrategy {
-    
-    private final ConcurrentLinkedDeque<RequestRecord> requestQueue;
+
+    static final int DEFAULT_BUCKETS = 10;
+    // Epoch of a bucket holding no slice; time sources may read negative, so -1 is a real epoch
+    private static final long NO_EPOCH = Long.MIN_VALUE;
+
     private final long windowDurationMs;
-    
+    private final int bucketCount;
+    private final long bucketSizeMs;
+    private final TimeSource timeSource;
+
+    // Epoch (time / bucket size) each bucket currently holds
+    private final AtomicLongArray bucketEpochs;
+    private final AtomicLongArray bucketSuccesses;
+    private final AtomicLongArray bucketFailures;
+    private final AtomicLongArray bucketSlowCalls;
+    private final AtomicLong headEpoch;
+
+    private final AtomicLong totalSuccesses = new AtomicLong();
+    private final AtomicLong totalFailures = new AtomicLong();
+    private final AtomicLong totalSlowCalls = new AtomicLong();
+
+    public SlidingWindowCountStrategy(long windowDurationMs) {
+        this(windowDurationMs, DEFAULT_BUCKETS);
+    }
+
+    public SlidingWindowCountStrategy(long windowDurationMs, int bucketCount) {
+        this(windowDurationMs, bucketCount, SystemTimeSource.INSTANCE);
+    }
+
     /**
-     * Record of a single request with timestamp
+     * @param timeSource must be the breaker's, since the window is keyed by its time
      */
-    static class RequestRecord {
-        final long timestamp;
-        final boolean isFailure;
-        
-        RequestRecord(long timestamp, boolean isFailure) {
-            this.timestamp = timestamp;
-            this.isFailure = isFailure;
-        }
-    }
-    
-    public SlidingWindowCountStrategy(long windowDurationMs) {
+    public SlidingWindowCountStrategy(long windowDurationMs, int bucketCount, TimeSource timeSource) {
+        this.timeSource = timeSource;
         this.windowDurationMs = windowDurationMs;
-        this.requestQueue = new ConcurrentLinkedDeque<>();
+        this.bucketCount = bucketCount;
+        this.bucketSizeMs = Math.max(1, windowDurationMs / bucketCount);
+        this.bucketEpochs = new AtomicLongArray(bucketCount);
+        this.bucketSuccesses = new AtomicLongArray(bucketCount);
+        this.bucketFailures = new AtomicLongArray(bucketCount);
+        this.bucketSlowCalls = new AtomicLongArray(bucketCount);
+        this.headEpoch = new AtomicLong();
+        reset();
     }
 
     @Override
     public int countFailures(CircuitBreakerContext circuitBreakerContext) {
-        long currentTime = circuitBreakerContext.getCurrentTime().get();
-        
-        // Remove expired entries from the front
-        removeExpiredEntries(currentTime);
-        
-        // Count failures in the valid window
-        return (int) requestQueue.stream()
-                .filter(r -> r.isFailure)
-                .count();
+        advance(epochOf(circuitBreakerContext.getCurrentTime().get()));
+        return (int) Math.max(0, totalFailures.get());
     }
 
-    public void recordFailure(CircuitBreakerContext circuitBreakerContext) {
-        long currentTime = System.currentTimeMillis();
-        circuitBreakerContext.getCurrentTime().set(currentTime);
-        
-        // Remove expired entries first
-        removeExpiredEntries(currentTime);
-        
-        // Add new failure record to the back
-        requestQueue.addLast(new RequestRecord(currentTime, true));
-        
-        // Update context for compatibility (HALF_OPEN state uses this)
-        var windowContext = circuitBreakerContext.getWindowContext();
-        windowContext.getTotalRequestsInCurrentWindow().set(getTotalRequests());
-        windowContext.getCurrentWindowCount().set(countFailures(circuitBreakerContext));
-        windowContext.getLastRequestedAtInMs().set(currentTime);
+    @Override
+    public long countCalls(CircuitBreakerContext circuitBreakerContext) {
+        advance(epochOf(circuitBreakerContext.getCurrentTime().get()));
+        return getTotalRequests();
     }
 
-    public void recordSuccess(CircuitBreakerContext circuitBreakerContext) {
-        long currentTime = System.currentTimeMillis();
-        circuitBreakerContext.getCurrentTime().set(currentTime);
-        
-        // Remove expired entries first
-        removeExpiredEntries(currentTime);
-        
-        // Add new success record to the back
-        requestQueue.addLast(new RequestRecord(currentTime, false));
-        
+    @Override
+    public int countSlowCalls(CircuitBreakerContext circuitBreakerContext) {
+        advance(epochOf(circuitBreakerContext.getCurrentTime().get()));
+        return (int) Math.max(0, totalSlowCalls.get());
+    }
+
+    @Override
+    public void record(CircuitBreakerContext circuitBreakerContext, boolean isFailure, boolean isSlow) {
+        long currentTime = circuitBreakerContext.getCurrentTime().get();
+
+        long epoch = epochOf(currentTime);
+        advance(epoch);
+
+        int bucket = bucketOf(epoch);
+        // The bucket already moved past this call's slice, so the call is outside the window
+        if (bucketEpochs.get(bucket) > epoch) {
+            return;
+        }
+        if (isFailure) {
+            bucketFailures.incrementAndGet(bucket);
+            totalFailures.incrementAndGet();
+        } else {
+            bucketSuccesses.incrementAndGet(bucket);
+            totalSuccesses.incrementAndGet();
+        }
+        if (isSlow) {
+            bucketSlowCalls.incrementAndGet(bucket);
+            totalSlowCalls.incrementAndGet();
+        }
+
         // Update context for compatibility (HALF_OPEN state uses this)
         var windowContext = circuitBreakerContext.getWindowContext();
         windowContext.getTotalRequestsInCurrentWindow().set(getTotalRequests());
-        windowContext.getCurrentWindowCount().set(countFailures(circuitBreakerContext));
+        windowContext.getCurrentWindowCount().set(Math.max(0, totalFailures.get()));
         windowContext.getLastRequestedAtInMs().set(currentTime);
     }
-    
+
     /**
-     * Remove records older than the window from the front of the queue
-     * This is efficient because entries are naturally time-ordered
+     * Moves the head to the given epoch. Only the thread whose CAS moves the head
+     * recycles the buckets between the old and new head, at most one full ring.
      */
-    private void removeExpiredEntries(long currentTime) {
-        long cutoffTime = currentTime - windowDurationMs;
-        
-        // Remove from front while entries are expired
-        // ConcurrentLinkedDeque supports safe concurrent operations
-        while (!requestQueue.isEmpty()) {
-            RequestRecord first = requestQueue.peekFirst();
-            if (first != null && first.timestamp < cutoffTime) {
-                requestQueue.pollFirst();
-            } else {
-                break; // Rest are within the valid window
+    private void advance(long epoch) {
+        while (true) {
+            long head = headEpoch.get();
+            if (epoch <= head) {
+                return;
+            }
+            if (headEpoch.compareAndSet(head, epoch)) {
+                for (long e = Math.max(head + 1, epoch - bucketCount + 1); e <= epoch; e++) {
+                    recycle(bucketOf(e), e);
+                }
+                return;
+            }
+        }
+    }
+
+    private void recycle(int bucket, long epoch) {
+        while (true) {
+            long held = bucketEpochs.get(bucket);
+            // A later advance already claimed this bucket for a newer slice
+            if (held >= epoch) {
+                return;
+            }
+            if (bucketEpochs.compareAndSet(bucket, held, epoch)) {
+                totalSuccesses.addAndGet(-bucketSuccesses.getAndSet(bucket, 0));
+                totalFailures.addAndGet(-bucketFailures.getAndSet(bucket, 0));
+                totalSlowCalls.addAndGet(-bucketSlowCalls.getAndSet(bucket, 0));
+                return;
             }
         }
     }
-    
+
+    private long epochOf(long timeMs) {
+        return Math.floorDiv(timeMs, bucketSizeMs);
+    }
+
+    private int bucketOf(long epoch) {
+        return (int) Math.floorMod(epoch, (long) bucketCount);
+    }
+
     /**
      * Get total requests in current window (for metrics)
      */
     public long getTotalRequests() {
-        return requestQueue.size();
+        return Math.max(0, totalSuccesses.get() + totalFailures.get());
     }
-    
-    /**
-     * Clear all records (used when resetting state)
-     */
+
+    public long getWindowDurationMs() {
+        return windowDurationMs;
+    }
+
+    @Override
     public void reset() {
-        requestQueue.clear();
+        long epoch = epochOf(timeSource.millis());
+        for (int i = 0; i < bucketCount; i++) {
+            bucketEpochs.set(i, NO_EPOCH);
+            bucketSuccesses.set(i, 0);
+            bucketFailures.set(i, 0);
+            bucketSlowCalls.set(i, 0);
+        }
+        bucketEpochs.set(bucketOf(epoch), epoch);
+        headEpoch.set(epoch);
+        totalSuccesses.set(0);
+        totalFailures.set(0);
+        totalSlowCalls.set(0);
     }
 }
@@ -0,0 +1,16 @@
+package circuitbreaker;
+
+public enum SlidingWindowType {
+    /**
+     * Failures counted per fixed time window, reset when the window ends (default)
+     */
+    FIXED,
+    /**
+     * Calls in the last windowForFailureCount milliseconds, in time-slice buckets
+     */
+    TIME_BASED,
+    /**
+     * The last slidingWindowSize calls, whatever their age
+     */
+    COUNT_BASED
+}
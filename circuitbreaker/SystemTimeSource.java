@@ -0,0 +1,17 @@
+package circuitbreaker;
+
+/**
+ * {@link System#nanoTime()}, immune to wall clock jumps.
+ */
+public final class SystemTimeSource implements TimeSource {
+
+    public static final SystemTimeSource INSTANCE = new SystemTimeSource();
+
+    private SystemTimeSource() {
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,19 @@
+package circuitbreaker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monotonic time used by the circuit breaker for windows, the OPEN timeout
+ * and call durations. Values only make sense as differences.
+ *
+ * This and its two implementations mirror ratelimiter.TimeSource on purpose:
+ * the breaker package stays free of imports from its sibling packages.
+ */
+public interface TimeSource {
+
+    long nanoTime();
+
+    default long millis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanoTime());
+    }
+}
@@ -0,0 +1,29 @@
+package concurrentbiddingsystem;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * One fill between a resting maker and an incoming taker. Statuses are the
+ * orders' states right after this fill.
+ */
+@AllArgsConstructor
+@Data
+@Builder
+public class ExecutionReport {
+    // Increases by one per trade on a stream
+    private final long tradeId;
+    private final String symbol;
+    private final String makerOrderId;
+    private final String makerUserId;
+    private final OrderStatus makerStatus;
+    private final String takerOrderId;
+    private final String takerUserId;
+    private final OrderStatus takerStatus;
+    private final OrderType takerSide;
+    // In ticks of the symbol's tick size
+    private final long priceTicks;
+    private final long quantity;
+    private final long timestampMs;
+}
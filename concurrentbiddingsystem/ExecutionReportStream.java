@@ -0,0 +1,160 @@
+package concurrentbiddingsystem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Delivers a book's fills to subscribers in batches, so nobody has to poll
+ * order status.
+ *
+ * The matching thread copies each fill into a preallocated slot of a bounded
+ * {@link MpscRingBuffer}; the report objects are built on the delivery thread,
+ * which hands each subscriber up to {@code maxBatchSize} reports per call.
+ * Fills are never dropped: when the ring is full, matching waits for delivery
+ * to catch up, so subscribers should be quick.
+ */
+public class ExecutionReportStream implements TradeListener, AutoCloseable {
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 512;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final MpscRingBuffer<Slot> ring;
+    private final int maxBatchSize;
+    private final List<ExecutionReportSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Consumer<Slot> collector = this::collect;
+    private final Thread worker;
+    private List<ExecutionReport> batch;
+    private volatile long delivered;
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    private static final class Slot {
+        long tradeId;
+        String symbol;
+        long makerOrderId;
+        String makerUserId;
+        OrderStatus makerStatus;
+        long takerOrderId;
+        String takerUserId;
+        OrderStatus takerStatus;
+        OrderType takerSide;
+        long priceTicks;
+        long quantity;
+        long timestampMs;
+    }
+
+    public ExecutionReportStream() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param capacity fills buffered before matching waits, a power of two
+     */
+    public ExecutionReportStream(int capacity, int maxBatchSize) {
+        this.ring = new MpscRingBuffer<>(capacity, Slot::new);
+        this.maxBatchSize = maxBatchSize;
+        this.worker = new Thread(this::run, "execution-reports");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void subscribe(ExecutionReportSubscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(ExecutionReportSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Records a fill on the thread that owns the book; allocates nothing
+     */
+    @Override
+    public void onTrade(Order maker, Order taker, long priceTicks, long quantity) {
+        long sequence = ring.next();
+        Slot slot = ring.get(sequence);
+        slot.tradeId = sequence + 1;
+        slot.symbol = taker.symbol;
+        slot.makerOrderId = maker.id;
+        slot.makerUserId = maker.userId;
+        slot.makerStatus = maker.status;
+        slot.takerOrderId = taker.id;
+        slot.takerUserId = taker.userId;
+        slot.takerStatus = taker.status;
+        slot.takerSide = taker.type;
+        slot.priceTicks = priceTicks;
+        slot.quantity = quantity;
+        slot.timestampMs = System.currentTimeMillis();
+        ring.publish(sequence);
+        if (idle) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void run() {
+        while (running || ring.size() > 0) {
+            if (batch == null) {
+                batch = new ArrayList<>();
+            }
+            int count = ring.drain(collector, maxBatchSize);
+            if (count == 0) {
+                idle = true;
+                // Recheck so a fill published just before idle was set is not left waiting
+                if (ring.size() == 0 && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+                continue;
+            }
+            List<ExecutionReport> reports = Collections.unmodifiableList(batch);
+            // Subscribers may keep the batch, so the next one gets a new list
+            batch = null;
+            for (ExecutionReportSubscriber subscriber : subscribers) {
+                try {
+                    subscriber.onReports(reports);
+                } catch (Exception e) {
+                    System.err.println("Error in execution report subscriber: " + e);
+                }
+            }
+            delivered += count;
+        }
+    }
+
+    private void collect(Slot slot) {
+        batch.add(new ExecutionReport(slot.tradeId, slot.symbol,
+                Long.toString(slot.makerOrderId), slot.makerUserId, slot.makerStatus,
+                Long.toString(slot.takerOrderId), slot.takerUserId, slot.takerStatus,
+                slot.takerSide, slot.priceTicks, slot.quantity, slot.timestampMs));
+        slot.symbol = null;
+        slot.makerUserId = null;
+        slot.takerUserId = null;
+    }
+
+    public int getBufferedCount() {
+        return ring.size();
+    }
+
+    public long getDeliveredCount() {
+        return delivered;
+    }
+
+    /**
+     * Stops the delivery thread once it has delivered every fill already recorded
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
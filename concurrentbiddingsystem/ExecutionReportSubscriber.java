@@ -0,0 +1,11 @@
+package concurrentbiddingsystem;
+
+import java.util.List;
+
+public interface ExecutionReportSubscriber {
+
+    /**
+     * Called on the stream's delivery thread with reports in trade order
+     */
+    void onReports(List<ExecutionReport> reports);
+}
@@ -0,0 +1,19 @@
+package concurrentbiddingsystem;
+
+/**
+ * How an order executes against the book; {@link OrderType} gives its side
+ */
+public enum ExecutionType {
+    // Matches up to its price and rests the remainder
+    LIMIT,
+    // Matches at any price; whatever the book cannot fill is cancelled
+    MARKET,
+    // Immediate-or-cancel: matches up to its price and cancels the remainder
+    IOC,
+    // Fill-or-kill: fills completely up to its price at once, or is cancelled untouched
+    FOK,
+    // Becomes a market order once the last trade reaches its stop price
+    STOP,
+    // Becomes a limit order once the last trade reaches its stop price
+    STOP_LIMIT
+}
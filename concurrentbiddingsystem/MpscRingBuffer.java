@@ -0,0 +1,101 @@
+package concurrentbiddingsystem;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded multi-producer, single-consumer ring of preallocated slots, in the
+ * style of the Disruptor.
+ *
+ * A producer claims a sequence with one atomic increment, fills the slot in
+ * place and publishes it by writing the sequence into the slot's flag. The
+ * consumer processes every published slot in order, in batches, and only then
+ * moves its gating sequence, so producers see one volatile write per batch.
+ * No locks are taken and no objects are allocated per message. A full ring
+ * makes producers wait until the consumer catches up.
+ */
+class MpscRingBuffer<T> {
+
+    private final int mask;
+    private final Object[] slots;
+    // Sequence each slot was last published for, -1 until first use
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    // Everything below this has been consumed and may be overwritten
+    private final AtomicLong consumed = new AtomicLong();
+
+    /**
+     * @param capacity a power of two
+     */
+    MpscRingBuffer(int capacity, Supplier<T> slotFactory) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.slots = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = slotFactory.get();
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * Claims the next sequence, waiting while the ring is full. The caller must
+     * fill {@link #get} of it and then {@link #publish} it.
+     */
+    long next() {
+        long sequence = claimed.getAndIncrement();
+        int spins = 0;
+        while (sequence - slots.length >= consumed.get()) {
+            // Yield after a short spin so a consumer sharing the core can catch up
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        return sequence;
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(long sequence) {
+        return (T) slots[(int) sequence & mask];
+    }
+
+    void publish(long sequence) {
+        published.set((int) sequence & mask, sequence);
+    }
+
+    /**
+     * Hands every published slot, up to the first gap, to the handler on the calling thread
+     *
+     * @return slots processed
+     */
+    int drain(Consumer<T> handler) {
+        return drain(handler, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #drain(Consumer)}, stopping after at most {@code limit} slots
+     */
+    int drain(Consumer<T> handler, int limit) {
+        long start = consumed.get();
+        long sequence = start;
+        long end = start + limit;
+        while (sequence != end && published.get((int) sequence & mask) == sequence) {
+            handler.accept(get(sequence));
+            sequence++;
+        }
+        if (sequence != start) {
+            consumed.lazySet(sequence);
+        }
+        return (int) (sequence - start);
+    }
+
+    int size() {
+        return (int) Math.max(0, claimed.get() - consumed.get());
+    }
+}
@@ -1,18 +1,95 @@
 package concurrentbiddingsystem;
 
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
 @Builder
-class Order {
+public class Order {
     String orderId;
+    long id;
     String userId;
     String symbol;  // Stock symbol (e.g., "AAPL")
     OrderType type;
-    double price;
-    int quantity;
-    int filledQuantity;
+    // null means LIMIT
+    ExecutionType execution;
+    // In ticks of the symbol's tick size
+    long priceTicks;
+    long stopPriceTicks;
+    long quantity;
+    long filledQuantity;
     OrderStatus status;
     long timestamp;
-}
\ No newline at end of file
+
+    // Intrusive links of the price level the order rests in, so it can be unlinked in O(1);
+    // owned by the book, so no accessors are generated for them
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    PriceLevel level;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    Order prev;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    Order next;
+
+    ExecutionType getExecutionOrDefault() {
+        return execution != null ? execution : ExecutionType.LIMIT;
+    }
+
+    long getRemainingQuantity() {
+        return quantity - filledQuantity;
+    }
+
+    /**
+     * Clears the order for reuse by an {@link OrderPool}
+     */
+    void reset() {
+        orderId = null;
+        id = 0;
+        userId = null;
+        symbol = null;
+        type = null;
+        execution = null;
+        priceTicks = 0;
+        stopPriceTicks = 0;
+        quantity = 0;
+        filledQuantity = 0;
+        status = null;
+        timestamp = 0;
+        level = null;
+        prev = null;
+        next = null;
+    }
+
+    /**
+     * Copy without the book links, safe to hand to another thread
+     */
+    Order snapshot() {
+        return Order.builder()
+                .orderId(orderId != null ? orderId : Long.toString(id))
+                .id(id)
+                .userId(userId)
+                .symbol(symbol)
+                .type(type)
+                .execution(execution)
+                .priceTicks(priceTicks)
+                .stopPriceTicks(stopPriceTicks)
+                .quantity(quantity)
+                .filledQuantity(filledQuantity)
+                .status(status)
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -2,13 +2,62 @@ package concurrentbiddingsystem;
 
 import java.util.List;
 
+/**
+ * Prices are whole ticks of the symbol's tick size and quantities are longs,
+ * so matching compares exactly. The {@code double} methods convert through
+ * {@link #getTickTable()}.
+ */
 public interface OrderBook {
     /**
-     * Submit a new order (thread-safe)
+     * Submit a new order of any execution type (thread-safe). The order and
+     * any stops its trades trigger run in the symbol's critical section.
+     * @param priceTicks limit price, ignored for MARKET and STOP
+     * @param stopPriceTicks trigger price for STOP and STOP_LIMIT, ignored otherwise
+     * @return orderId if successful, null if invalid, including a price it uses that is not positive
+     */
+    String submitOrderTicks(String userId, String symbol, OrderType type, ExecutionType execution,
+                            long priceTicks, long stopPriceTicks, long quantity);
+
+    /**
+     * Submit a new limit order (thread-safe)
      * @return orderId if successful, null if invalid
      */
-    String submitOrder(String userId, String symbol, OrderType type, 
-                      double price, int quantity);
+    default String submitOrderTicks(String userId, String symbol, OrderType type,
+                                    long priceTicks, long quantity) {
+        return submitOrderTicks(userId, symbol, type, ExecutionType.LIMIT, priceTicks, 0, quantity);
+    }
+
+    /**
+     * Submit a new order at decimal prices (thread-safe)
+     * @return orderId if successful, null if invalid or a price is not on a tick
+     */
+    default String submitOrder(String userId, String symbol, OrderType type, ExecutionType execution,
+                               double price, double stopPrice, long quantity) {
+        long priceTicks;
+        long stopPriceTicks;
+        try {
+            priceTicks = getTickTable().toTicks(symbol, price);
+            stopPriceTicks = getTickTable().toTicks(symbol, stopPrice);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return submitOrderTicks(userId, symbol, type, execution, priceTicks, stopPriceTicks, quantity);
+    }
+
+    /**
+     * Submit a new order at a decimal price (thread-safe)
+     * @return orderId if successful, null if invalid or not on a tick
+     */
+    default String submitOrder(String userId, String symbol, OrderType type,
+                               double price, int quantity) {
+        long priceTicks;
+        try {
+            priceTicks = getTickTable().toTicks(symbol, price);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return submitOrderTicks(userId, symbol, type, priceTicks, quantity);
+    }
     
     /**
      * Cancel an existing order (thread-safe)
@@ -20,19 +69,37 @@ public interface OrderBook {
      * Get current order status (thread-safe read)
      */
     OrderStatus getOrderStatus(String orderId);
+
+    /**
+     * Get best bid in ticks (highest buy price), null if there are no bids
+     */
+    Long getBestBidTicks(String symbol);
+
+    /**
+     * Get best ask in ticks (lowest sell price), null if there are no asks
+     */
+    Long getBestAskTicks(String symbol);
     
     /**
      * Get best bid price (highest buy price)
      */
-    Double getBestBid(String symbol);
+    default Double getBestBid(String symbol) {
+        Long ticks = getBestBidTicks(symbol);
+        return ticks != null ? getTickTable().toPrice(symbol, ticks) : null;
+    }
     
     /**
      * Get best ask price (lowest sell price)
      */
-    Double getBestAsk(String symbol);
+    default Double getBestAsk(String symbol) {
+        Long ticks = getBestAskTicks(symbol);
+        return ticks != null ? getTickTable().toPrice(symbol, ticks) : null;
+    }
     
     /**
      * Get all pending orders for a user
      */
     List<Order> getUserOrders(String userId);
-}
\ No newline at end of file
+
+    TickTable getTickTable();
+}
@@ -3,6 +3,7 @@ package concurrentbiddingsystem;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class OrderBookDriver {
 
@@ -22,6 +23,12 @@ public class OrderBookDriver {
         testConcurrentOrders();
         testMultipleSymbols();
         stressTest();
+        testPriceLevels();
+        testShardedEngine();
+        testTickSizes();
+        testOrderTypes(new OrderBookingService(), "LOCKED SERVICE");
+        testOrderTypes(new ShardedMatchingEngine(2, 1024, new TickTable()), "SHARDED ENGINE");
+        testExecutionReports();
 
         System.out.println("\n" + "=".repeat(80));
         System.out.println("TEST SUMMARY");
@@ -95,15 +102,15 @@ public class OrderBookDriver {
         assertEqual(1, user1Orders.size(), "User1 should have 1 order");
         if (!user1Orders.isEmpty()) {
             Order buyOrder = user1Orders.get(0);
-            assertEqual(100, buyOrder.filledQuantity, "BUY order filled quantity should be 100");
-            assertEqual(100, buyOrder.quantity, "BUY order total quantity should be 100");
+            assertEqual(100L, buyOrder.filledQuantity, "BUY order filled quantity should be 100");
+            assertEqual(100L, buyOrder.quantity, "BUY order total quantity should be 100");
         }
 
         List<Order> user2Orders = orderBook.getUserOrders("user2");
         assertEqual(1, user2Orders.size(), "User2 should have 1 order");
         if (!user2Orders.isEmpty()) {
             Order sellOrder = user2Orders.get(0);
-            assertEqual(100, sellOrder.filledQuantity, "SELL order filled quantity should be 100");
+            assertEqual(100L, sellOrder.filledQuantity, "SELL order filled quantity should be 100");
         }
 
         System.out.println("\nTest 1 Summary: Basic matching works correctly");
@@ -128,7 +135,7 @@ public class OrderBookDriver {
 
         Order buyOrder = orderBook.getUserOrders("user1").get(0);
         assertEqual(OrderStatus.PARTIALLY_FILLED, buyOrder.status, "BUY order should be PARTIALLY_FILLED");
-        assertEqual(30, buyOrder.filledQuantity, "BUY order should have 30 shares filled");
+        assertEqual(30L, buyOrder.filledQuantity, "BUY order should have 30 shares filled");
 
         System.out.println("\nPhase 3: Submit SELL order for 40 shares");
         String sellOrder2 = orderBook.submitOrder("user3", "GOOGL", OrderType.SELL, 2800.00, 40);
@@ -136,7 +143,7 @@ public class OrderBookDriver {
 
         buyOrder = orderBook.getUserOrders("user1").get(0);
         assertEqual(OrderStatus.PARTIALLY_FILLED, buyOrder.status, "BUY order should still be PARTIALLY_FILLED");
-        assertEqual(70, buyOrder.filledQuantity, "BUY order should have 70 shares filled");
+        assertEqual(70L, buyOrder.filledQuantity, "BUY order should have 70 shares filled");
 
         System.out.println("\nPhase 4: Submit SELL order for 30 shares (complete fill)");
         String sellOrder3 = orderBook.submitOrder("user4", "GOOGL", OrderType.SELL, 2800.00, 30);
@@ -144,7 +151,7 @@ public class OrderBookDriver {
 
         buyOrder = orderBook.getUserOrders("user1").get(0);
         assertEqual(OrderStatus.FILLED, buyOrder.status, "BUY order should be FILLED");
-        assertEqual(100, buyOrder.filledQuantity, "BUY order should have 100 shares filled");
+        assertEqual(100L, buyOrder.filledQuantity, "BUY order should have 100 shares filled");
 
         System.out.println("\nTest 2 Summary: Partial fills work correctly");
     }
@@ -174,7 +181,7 @@ public class OrderBookDriver {
 
         Order sellOrder = orderBook.getUserOrders("user2").get(0);
         assertEqual(OrderStatus.PENDING, sellOrder.status, "SELL order should remain PENDING (no match with cancelled)");
-        assertEqual(0, sellOrder.filledQuantity, "SELL order should have 0 filled (no match)");
+        assertEqual(0L, sellOrder.filledQuantity, "SELL order should have 0 filled (no match)");
 
         System.out.println("\nPhase 4: Try to cancel already cancelled order");
         boolean cancelledAgain = orderBook.cancelOrder(buyOrderId);
@@ -442,4 +449,333 @@ public class OrderBookDriver {
 
         System.out.println("\nTest 7 Summary: System handles stress correctly");
     }
-}
\ No newline at end of file
+
+    // ==================== TEST 8: PRICE LEVELS ====================
+
+    public static void testPriceLevels() {
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println("TEST 8: PRICE LEVELS, DEPTH AND CANCEL BY HANDLE");
+        System.out.println("=".repeat(80));
+
+        OrderBookingService orderBook = new OrderBookingService();
+
+        System.out.println("\nPhase 1: Two levels of bids");
+        String bid100 = orderBook.submitOrder("user1", "NFLX", OrderType.BUY, 100.00, 10);
+        String bid101a = orderBook.submitOrder("user2", "NFLX", OrderType.BUY, 101.00, 20);
+        String bid101b = orderBook.submitOrder("user3", "NFLX", OrderType.BUY, 101.00, 30);
+        assertEqual(101.00, orderBook.getBestBid("NFLX"), "Best bid should be $101.00");
+        assertEqual(50L, orderBook.getDepthAt("NFLX", OrderType.BUY, 101.00), "Depth at $101.00 should be 50");
+
+        System.out.println("\nPhase 2: Cancelling the best level moves the best bid at once");
+        orderBook.cancelOrder(bid101a);
+        assertEqual(30L, orderBook.getDepthAt("NFLX", OrderType.BUY, 101.00), "Depth at $101.00 should be 30");
+        orderBook.cancelOrder(bid101b);
+        assertEqual(100.00, orderBook.getBestBid("NFLX"), "Best bid should fall back to $100.00");
+        assertEqual(0L, orderBook.getDepthAt("NFLX", OrderType.BUY, 101.00), "Level $101.00 should be gone");
+
+        System.out.println("\nPhase 3: A sell sweeps the remaining level, not the cancelled ones");
+        String sell = orderBook.submitOrder("user4", "NFLX", OrderType.SELL, 100.00, 15);
+        assertEqual(OrderStatus.FILLED, orderBook.getOrderStatus(bid100), "Bid at $100.00 should be FILLED");
+        assertEqual(OrderStatus.PARTIALLY_FILLED, orderBook.getOrderStatus(sell), "SELL should be PARTIALLY_FILLED");
+        assertEqual(null, orderBook.getBestBid("NFLX"), "No bids should remain");
+        assertEqual(100.00, orderBook.getBestAsk("NFLX"), "SELL remainder should rest at $100.00");
+        assertEqual(5L, orderBook.getDepthAt("NFLX", OrderType.SELL, 100.00), "5 shares should rest on the ask");
+
+        System.out.println("\nTest 8 Summary: Levels, depth and cancels stay consistent");
+    }
+
+    // ==================== TEST 9: SHARDED ENGINE ====================
+
+    public static void testShardedEngine() throws InterruptedException {
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println("TEST 9: SHARDED MATCHING ENGINE");
+        System.out.println("=".repeat(80));
+
+        ShardedMatchingEngine engine = new ShardedMatchingEngine(4, 1024, new TickTable());
+
+        System.out.println("\nPhase 1: Same results as the locked service through the blocking API");
+        String buy = engine.submitOrder("user1", "AAPL", OrderType.BUY, 150.00, 100);
+        assertEqual(150.00, engine.getBestBid("AAPL"), "Best bid should be $150.00");
+        String sell = engine.submitOrder("user2", "AAPL", OrderType.SELL, 149.00, 60);
+        assertEqual(OrderStatus.PARTIALLY_FILLED, engine.getOrderStatus(buy), "BUY should be PARTIALLY_FILLED");
+        assertEqual(OrderStatus.FILLED, engine.getOrderStatus(sell), "SELL should be FILLED");
+        assertEqual(40L, engine.getDepthAt("AAPL", OrderType.BUY, 150.00), "40 shares should rest at $150.00");
+        assertTrue(engine.cancelOrder(buy), "Resting remainder should cancel");
+        assertTrue(!engine.cancelOrder(sell), "Filled order should not cancel");
+        assertTrue(!engine.cancelOrder("not-an-id"), "Unknown id should not cancel");
+        assertEqual(null, engine.getBestBid("AAPL"), "No bids should remain");
+
+        System.out.println("\nPhase 2: Producers on many threads, results through callbacks");
+        String[] symbols = {"AAPL", "GOOGL", "MSFT", "AMZN", "TSLA", "META", "NVDA", "NFLX"};
+        int threads = 8;
+        int ordersPerThread = 20_000;
+        CountDownLatch done = new CountDownLatch(threads * ordersPerThread);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int threadId = t;
+            String user = "user" + threadId;
+            executor.submit(() -> {
+                for (int i = 0; i < ordersPerThread; i++) {
+                    OrderType type = (i + threadId) % 2 == 0 ? OrderType.BUY : OrderType.SELL;
+                    engine.submitOrder(user, symbols[i % symbols.length], type,
+                            100 + (i % 10), 10, (orderId, status, filledQuantity) -> {
+                                ids.add(orderId);
+                                done.countDown();
+                            });
+                }
+            });
+        }
+        boolean completed = done.await(60, TimeUnit.SECONDS);
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+        assertTrue(completed, "Every order should get its callback");
+        assertEqual(threads * ordersPerThread, ids.size(), "Every order should get a distinct id");
+        System.out.printf("  %d orders in %d ms (%.0f orders/sec)\n", threads * ordersPerThread,
+                elapsedNanos / 1_000_000, threads * ordersPerThread * 1e9 / elapsedNanos);
+
+        boolean uncrossed = true;
+        for (String symbol : symbols) {
+            Double bid = engine.getBestBid(symbol);
+            Double ask = engine.getBestAsk(symbol);
+            uncrossed &= bid == null || ask == null || bid < ask;
+        }
+        assertTrue(uncrossed, "No book should be left crossed");
+        List<Order> resting = engine.getUserOrders("user3");
+        assertTrue(!resting.isEmpty() && resting.stream().allMatch(o -> o.userId.equals("user3")
+                        && (o.status == OrderStatus.PENDING || o.status == OrderStatus.PARTIALLY_FILLED)),
+                "User3's resting orders should come back from every shard");
+
+        System.out.println("\nPhase 3: Filled orders go back to the pool");
+        int allocatedBefore = engine.getAllocatedOrders();
+        CountDownLatch crossed = new CountDownLatch(200_000);
+        OrderResultListener countDown = (orderId, status, filledQuantity) -> crossed.countDown();
+        for (int i = 0; i < 100_000; i++) {
+            engine.submitOrderTicks("maker", "POOL", OrderType.SELL, 10_000, 5, countDown);
+            engine.submitOrderTicks("taker", "POOL", OrderType.BUY, 10_000, 5, countDown);
+        }
+        assertTrue(crossed.await(60, TimeUnit.SECONDS), "Every crossing order should get its callback");
+        assertTrue(engine.getAllocatedOrders() - allocatedBefore <= 1024,
+                "100k filled pairs should reuse pooled orders (allocated "
+                        + (engine.getAllocatedOrders() - allocatedBefore) + " more)");
+        assertEqual(null, engine.getBestAsk("POOL"), "Nothing should rest after the crosses");
+
+        System.out.println("\nPhase 4: A stop triggered by a submit fills that submit's resting remainder");
+        engine.submitOrderTicks("bidder", "STOPX", OrderType.BUY, ExecutionType.LIMIT, 10_000, 0, 10);
+        String stop = engine.submitOrderTicks("stopper", "STOPX", OrderType.BUY, ExecutionType.STOP, 0, 10_000, 20);
+        OrderResult seller = engine.submitOrderAsync("seller", "STOPX", OrderType.SELL, ExecutionType.LIMIT,
+                10_000, 0, 30).orTimeout(10, TimeUnit.SECONDS).join();
+        assertEqual(OrderStatus.FILLED, seller.getStatus(), "Sell should be FILLED by the bid and then the stop");
+        assertEqual(30L, seller.getFilledQuantity(), "Sell should report all 30 filled");
+        assertEqual(OrderStatus.FILLED, engine.getOrderStatus(stop), "Triggered stop should be FILLED");
+        assertEqual(null, engine.getBestAsk("STOPX"), "Nothing of the sell should rest");
+        String first = engine.submitOrderTicks("after", "STOPX", OrderType.BUY, ExecutionType.LIMIT, 9_000, 0, 1);
+        String second = engine.submitOrderTicks("after", "STOPX", OrderType.BUY, ExecutionType.LIMIT, 9_000, 0, 1);
+        assertEqual(2L, engine.getDepthAt("STOPX", OrderType.BUY, 90.00),
+                "Later orders should get distinct pooled orders (" + first + ", " + second + ")");
+
+        engine.shutdown();
+        assertEqual(0, engine.getPendingCommands(), "Shutdown should drain the rings");
+
+        System.out.println("\nPhase 5: Commands after shutdown are answered at once");
+        CompletableFuture<String> lateSubmit = CompletableFuture.supplyAsync(() -> engine.submitOrderTicks(
+                "late", "STOPX", OrderType.BUY, ExecutionType.LIMIT, 9_000, 0, 1));
+        assertEqual(null, lateSubmit.completeOnTimeout("timed out", 5, TimeUnit.SECONDS).join(),
+                "A submit after shutdown should be rejected, not left waiting");
+        assertEqual(false, engine.cancelOrder(first), "A cancel after shutdown should fail");
+        boolean queryFailed;
+        try {
+            engine.getOrderStatus(first);
+            queryFailed = false;
+        } catch (CompletionException e) {
+            queryFailed = e.getCause() instanceof IllegalStateException;
+        }
+        assertTrue(queryFailed, "A status query after shutdown should fail instead of waiting");
+        assertEqual(0, engine.getPendingCommands(), "Nothing should be queued after shutdown");
+
+        System.out.println("\nTest 9 Summary: Sharded engine matches without locks");
+    }
+
+    // ==================== TEST 10: TICK SIZES ====================
+
+    public static void testTickSizes() {
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println("TEST 10: INTEGER TICK PRICES");
+        System.out.println("=".repeat(80));
+
+        TickTable tickTable = new TickTable().withTickSize("BRK", 0.05);
+        OrderBookingService orderBook = new OrderBookingService(tickTable);
+
+        System.out.println("\nPhase 1: Prices off the symbol's tick are rejected");
+        assertEqual(null, orderBook.submitOrder("user1", "BRK", OrderType.BUY, 100.03, 10), "$100.03 is not a $0.05 tick");
+        assertEqual(null, orderBook.submitOrder("user1", "AAPL", OrderType.BUY, 100.001, 10), "$100.001 is not a cent tick");
+        assertEqual(null, orderBook.getBestBid("BRK"), "Rejected order should not rest");
+
+        System.out.println("\nPhase 2: Decimal prices that are not exact doubles still cross exactly");
+        String bid = orderBook.submitOrder("user1", "AAPL", OrderType.BUY, 0.1 + 0.2, 10);
+        String ask = orderBook.submitOrder("user2", "AAPL", OrderType.SELL, 0.30, 10);
+        assertEqual(OrderStatus.FILLED, orderBook.getOrderStatus(bid), "Bid at 0.1 + 0.2 should cross an ask at $0.30");
+        assertEqual(OrderStatus.FILLED, orderBook.getOrderStatus(ask), "Ask at $0.30 should be FILLED");
+
+        System.out.println("\nPhase 3: The tick API and the decimal API see the same book");
+        orderBook.submitOrderTicks("user3", "BRK", OrderType.SELL, 2001, 5);
+        assertEqual(100.05, orderBook.getBestAsk("BRK"), "2001 ticks of $0.05 should read as $100.05");
+        assertEqual(2001L, orderBook.getBestAskTicks("BRK"), "Best ask should be 2001 ticks");
+        assertEqual(5L, orderBook.getDepthAt("BRK", OrderType.SELL, 100.05), "5 shares should rest at $100.05");
+
+        System.out.println("\nTest 10 Summary: Prices compare as whole ticks");
+    }
+
+    // ==================== TEST 11: ORDER TYPES ====================
+
+    public static void testOrderTypes(OrderBook orderBook, String name) {
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println("TEST 11: MARKET, IOC, FOK AND STOP ORDERS (" + name + ")");
+        System.out.println("=".repeat(80));
+
+        System.out.println("\nPhase 1: Market orders take any price and cancel what they cannot fill");
+        orderBook.submitOrder("maker", "ORCL", OrderType.SELL, 100.00, 10);
+        orderBook.submitOrder("maker", "ORCL", OrderType.SELL, 101.00, 10);
+        String market = orderBook.submitOrder("user1", "ORCL", OrderType.BUY, ExecutionType.MARKET, 0, 0, 15);
+        assertEqual(OrderStatus.FILLED, orderBook.getOrderStatus(market), "Market buy should sweep two levels");
+        assertEqual(101.00, orderBook.getBestAsk("ORCL"), "Best ask should move to $101.00");
+        String thin = orderBook.submitOrder("user1", "ORCL", OrderType.BUY, ExecutionType.MARKET, 0, 0, 10);
+        assertEqual(OrderStatus.CANCELLED, orderBook.getOrderStatus(thin), "Market buy beyond the book should cancel its remainder");
+        assertEqual(null, orderBook.getBestAsk("ORCL"), "Market order should not rest");
+
+        System.out.println("\nPhase 2: Immediate-or-cancel never rests");
+        orderBook.submitOrder("maker", "ORCL", OrderType.SELL, 102.00, 10);
+        String ioc = orderBook.submitOrder("user2", "ORCL", OrderType.BUY, ExecutionType.IOC, 101.00, 0, 5);
+        assertEqual(OrderStatus.CANCELLED, orderBook.getOrderStatus(ioc), "IOC below the ask should cancel");
+        assertEqual(null, orderBook.getBestBid("ORCL"), "IOC should not rest as a bid");
+        ioc = orderBook.submitOrder("user2", "ORCL", OrderType.BUY, ExecutionType.IOC, 102.00, 0, 15);
+        assertEqual(OrderStatus.CANCELLED, orderBook.getOrderStatus(ioc), "IOC remainder should cancel");
+        assertEqual(null, orderBook.getBestAsk("ORCL"), "IOC should take the whole level");
+
+        System.out.println("\nPhase 3: Fill-or-kill checks depth before touching the book");
+        orderBook.submitOrder("maker", "ORCL", OrderType.SELL, 103.00, 5);
+        orderBook.submitOrder("maker", "ORCL", OrderType.SELL, 104.00, 5);
+        String fok = orderBook.submitOrder("user3", "ORCL", OrderType.BUY, ExecutionType.FOK, 104.00, 0, 11);
+        assertEqual(OrderStatus.CANCELLED, orderBook.getOrderStatus(fok), "FOK for more than the depth should be killed");
+        assertEqual(103.00, orderBook.getBestAsk("ORCL"), "Killed FOK should leave the book untouched");
+        fok = orderBook.submitOrder("user3", "ORCL", OrderType.BUY, ExecutionType.FOK, 104.00, 0, 10);
+        assertEqual(OrderStatus.FILLED, orderBook.getOrderStatus(fok), "FOK within the depth should fill");
+        assertEqual(null, orderBook.getBestAsk("ORCL"), "Filled FOK should empty the asks");
+
+        System.out.println("\nPhase 4: Stops trigger from the last trade price");
+        String buyStop = orderBook.submitOrder("user4", "ORCL", OrderType.BUY, ExecutionType.STOP, 0, 106.00, 5);
+        String sellStopLimit = orderBook.submitOrder("user4", "ORCL", OrderType.SELL, ExecutionType.STOP_LIMIT,
+                99.00, 100.00, 5);
+        assertEqual(OrderStatus.PENDING_TRIGGER, orderBook.getOrderStatus(buyStop), "Buy stop above the last trade should wait");
+        assertEqual(OrderStatus.PENDING_TRIGGER, orderBook.getOrderStatus(sellStopLimit), "Sell stop below the last trade should wait");
+        orderBook.submitOrder("maker", "ORCL", OrderType.SELL, 105.00, 5);
+        orderBook.submitOrder("maker", "ORCL", OrderType.SELL, 106.00, 10);
+        orderBook.submitOrder("user5", "ORCL", OrderType.BUY, 105.00, 5);
+        assertEqual(OrderStatus.PENDING_TRIGGER, orderBook.getOrderStatus(buyStop), "A trade at $105.00 should not trigger a $106.00 stop");
+        orderBook.submitOrder("user5", "ORCL", OrderType.BUY, 106.00, 5);
+        assertEqual(OrderStatus.FILLED, orderBook.getOrderStatus(buyStop), "A trade at $106.00 should trigger and fill the stop");
+        assertEqual(null, orderBook.getBestAsk("ORCL"), "The triggered stop should take the rest of $106.00");
+        assertTrue(orderBook.cancelOrder(sellStopLimit), "A waiting stop should cancel");
+        assertEqual(OrderStatus.CANCELLED, orderBook.getOrderStatus(sellStopLimit), "Cancelled stop should be CANCELLED");
+
+        System.out.println("\nPhase 5: A stop the last trade has already passed executes at once");
+        orderBook.submitOrder("maker", "ORCL", OrderType.BUY, 99.00, 10);
+        String passedStop = orderBook.submitOrder("user6", "ORCL", OrderType.SELL, ExecutionType.STOP, 0, 110.00, 5);
+        assertEqual(OrderStatus.FILLED, orderBook.getOrderStatus(passedStop), "Sell stop at or above the last trade should fill");
+
+        System.out.println("\nPhase 6: A stop triggered by a submit can trade against that submit's remainder");
+        String bid = orderBook.submitOrder("maker", "SELF", OrderType.BUY, 100.00, 10);
+        String stop = orderBook.submitOrder("user7", "SELF", OrderType.BUY, ExecutionType.STOP, 0, 100.00, 20);
+        String sell = orderBook.submitOrder("user8", "SELF", OrderType.SELL, 100.00, 30);
+        assertNotNull(sell, "Sell should be accepted");
+        assertEqual(OrderStatus.FILLED, orderBook.getOrderStatus(bid), "Resting bid should be FILLED by the sell");
+        assertEqual(OrderStatus.FILLED, orderBook.getOrderStatus(stop), "Stop should trigger and take the sell's remainder");
+        assertEqual(OrderStatus.FILLED, orderBook.getOrderStatus(sell), "Sell should end FILLED after resting 20");
+        assertEqual(null, orderBook.getBestAsk("SELF"), "Nothing of the sell should rest");
+
+        System.out.println("\nPhase 7: Prices an order uses must be positive ticks");
+        assertEqual(null, orderBook.submitOrderTicks("user9", "EDGE", OrderType.SELL, ExecutionType.LIMIT,
+                Long.MIN_VALUE, 0, 5), "Ask at Long.MIN_VALUE ticks should be rejected");
+        assertEqual(null, orderBook.submitOrderTicks("user9", "EDGE", OrderType.BUY, ExecutionType.IOC,
+                0, 0, 5), "IOC at zero ticks should be rejected");
+        assertEqual(null, orderBook.submitOrderTicks("user9", "EDGE", OrderType.BUY, ExecutionType.STOP,
+                0, -1, 5), "Stop with a negative trigger should be rejected");
+        assertEqual(null, orderBook.submitOrderTicks("user9", "EDGE", OrderType.SELL, ExecutionType.STOP_LIMIT,
+                0, 10_000, 5), "Stop-limit without a limit price should be rejected");
+        assertNotNull(orderBook.submitOrderTicks("user9", "EDGE", OrderType.SELL, ExecutionType.LIMIT,
+                1, 0, 5), "Ask at one tick should be accepted");
+        assertEqual(0.01, orderBook.getBestAsk("EDGE"), "Best ask should be the one-tick ask");
+
+        if (orderBook instanceof ShardedMatchingEngine) {
+            ((ShardedMatchingEngine) orderBook).shutdown();
+        }
+        System.out.println("\nTest 11 Summary: Order types behave the same on both books");
+    }
+
+    // ==================== TEST 12: EXECUTION REPORTS ====================
+
+    public static void testExecutionReports() throws InterruptedException {
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println("TEST 12: EXECUTION REPORT STREAM");
+        System.out.println("=".repeat(80));
+
+        System.out.println("\nPhase 1: Every fill of a sweep is reported in order");
+        ExecutionReportStream stream = new ExecutionReportStream(1024, 64);
+        List<ExecutionReport> reports = new CopyOnWriteArrayList<>();
+        AtomicInteger batches = new AtomicInteger();
+        stream.subscribe(batch -> {
+            batches.incrementAndGet();
+            reports.addAll(batch);
+        });
+        OrderBookingService orderBook = new OrderBookingService(new TickTable(), stream);
+        String maker1 = orderBook.submitOrder("maker1", "AMD", OrderType.SELL, 120.00, 30);
+        String maker2 = orderBook.submitOrder("maker2", "AMD", OrderType.SELL, 120.50, 30);
+        String taker = orderBook.submitOrder("taker", "AMD", OrderType.BUY, 121.00, 40);
+        stream.close();
+
+        assertEqual(2, reports.size(), "A sweep of two makers should report two fills");
+        if (reports.size() == 2) {
+            ExecutionReport first = reports.get(0);
+            ExecutionReport second = reports.get(1);
+            assertEqual(maker1, first.getMakerOrderId(), "First fill should be against the best ask");
+            assertEqual(taker, first.getTakerOrderId(), "Fill should name the taker");
+            assertEqual(12000L, first.getPriceTicks(), "First fill should trade at the maker's price");
+            assertEqual(30L, first.getQuantity(), "First fill should take the whole maker");
+            assertEqual(OrderStatus.FILLED, first.getMakerStatus(), "First maker should be FILLED");
+            assertEqual(maker2, second.getMakerOrderId(), "Second fill should be against the next level");
+            assertEqual(10L, second.getQuantity(), "Second fill should take the taker's remaining 10");
+            assertEqual(OrderStatus.PARTIALLY_FILLED, second.getMakerStatus(), "Second maker should be PARTIALLY_FILLED");
+            assertEqual(OrderStatus.FILLED, second.getTakerStatus(), "Taker should be FILLED by the last fill");
+            assertEqual(first.getTradeId() + 1, second.getTradeId(), "Trade ids should increase by one");
+        }
+
+        System.out.println("\nPhase 2: Engine fills arrive in batches without polling");
+        ExecutionReportStream engineStream = new ExecutionReportStream(1 << 12, 256);
+        AtomicLong filledQuantity = new AtomicLong();
+        AtomicInteger engineBatches = new AtomicInteger();
+        engineStream.subscribe(batch -> {
+            engineBatches.incrementAndGet();
+            for (ExecutionReport report : batch) {
+                filledQuantity.addAndGet(report.getQuantity());
+            }
+        });
+        ShardedMatchingEngine engine = new ShardedMatchingEngine(2, 1024, new TickTable(), engineStream);
+        int pairs = 50_000;
+        CountDownLatch done = new CountDownLatch(pairs * 2);
+        OrderResultListener countDown = (orderId, status, filled) -> done.countDown();
+        for (int i = 0; i < pairs; i++) {
+            String symbol = i % 2 == 0 ? "AMD" : "INTC";
+            engine.submitOrderTicks("maker", symbol, OrderType.SELL, 5_000, 3, countDown);
+            engine.submitOrderTicks("taker", symbol, OrderType.BUY, 5_000, 3, countDown);
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS), "Every order should complete");
+        engine.shutdown();
+        engineStream.close();
+        assertEqual((long) pairs, engineStream.getDeliveredCount(), "Every cross should be reported once");
+        assertEqual(pairs * 3L, filledQuantity.get(), "Reported quantities should add up to the fills");
+        assertTrue(engineBatches.get() < pairs, "Reports should arrive in batches (" + engineBatches.get() + " batches)");
+
+        System.out.println("\nTest 12 Summary: Fills are pushed, not polled");
+    }
+}
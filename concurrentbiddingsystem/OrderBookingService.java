@@ -1,81 +1,79 @@
 package concurrentbiddingsystem;
 
-import lombok.Builder;
-import lombok.Data;
-
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Order book over price levels: each symbol has a {@link SymbolOrderBook}
+ * guarded by its own lock, and orders are matched on the submitting thread.
+ *
+ * An order's entry in {@code orders} doubles as its handle into the book, so
+ * cancelling unlinks it directly instead of leaving it for a later sweep.
+ */
 public class OrderBookingService implements OrderBook {
 
-    @Data
-    @Builder
-    private static class OrderMetaDetails {
-        private double amount;
-        private OrderType orderType;
-        private String orderId;
-        private Integer quantity;
-        private long orderPlacementTime;
-    }
-
     private final ConcurrentHashMap<String, Order> orders;
-    private final ConcurrentHashMap<String, PriorityBlockingQueue<OrderMetaDetails>> buyOrdersQueue;
-    private final ConcurrentHashMap<String, PriorityBlockingQueue<OrderMetaDetails>> sellOrdersQueue;
+    private final ConcurrentHashMap<String, SymbolOrderBook> books;
     private final ConcurrentHashMap<String, ReentrantLock> symbolLocks;
     private final ConcurrentHashMap<String, CopyOnWriteArrayList<Order>> usersToOrders;
-    private final ExecutorService executor;
+    private final TickTable tickTable;
+    private final TradeListener tradeListener;
+    // Sequential ids are far cheaper to make than random UUIDs
+    private final AtomicLong nextOrderId = new AtomicLong();
 
     public OrderBookingService() {
+        this(new TickTable());
+    }
+
+    public OrderBookingService(TickTable tickTable) {
+        this(tickTable, null);
+    }
+
+    /**
+     * @param executionReports receives every fill, written under the symbol's lock; null for none
+     */
+    public OrderBookingService(TickTable tickTable, ExecutionReportStream executionReports) {
+        this.tickTable = tickTable;
+        this.tradeListener = executionReports != null ? executionReports : TradeListener.NONE;
         orders = new ConcurrentHashMap<>();
-        buyOrdersQueue = new ConcurrentHashMap<>();
-        sellOrdersQueue = new ConcurrentHashMap<>();
-        symbolLocks = new ConcurrentHashMap<>();  // Added
+        books = new ConcurrentHashMap<>();
+        symbolLocks = new ConcurrentHashMap<>();
         usersToOrders = new ConcurrentHashMap<>();
-        executor = Executors.newFixedThreadPool(10);
     }
 
     @Override
-    public String submitOrder(String userId, String symbol, OrderType type, double price, int quantity) {
+    public String submitOrderTicks(String userId, String symbol, OrderType type, ExecutionType execution,
+                                   long priceTicks, long stopPriceTicks, long quantity) {
+        if (quantity <= 0 || execution == null
+                || !SymbolOrderBook.hasValidPrices(execution, priceTicks, stopPriceTicks)) {
+            return null;
+        }
         ReentrantLock lock = symbolLocks.computeIfAbsent(symbol, k -> new ReentrantLock());
         lock.lock();
         try {
-            var orderId = UUID.randomUUID().toString();
-            var now = System.currentTimeMillis();
+            long id = nextOrderId.incrementAndGet();
+            var orderId = Long.toString(id);
             var newOrder = Order.builder()
                     .orderId(orderId)
+                    .id(id)
                     .userId(userId)
                     .status(OrderStatus.PENDING)
                     .quantity(quantity)
                     .filledQuantity(0)
-                    .price(price)
-                    .timestamp(now)
+                    .execution(execution)
+                    .priceTicks(priceTicks)
+                    .stopPriceTicks(stopPriceTicks)
+                    .timestamp(System.currentTimeMillis())
                     .symbol(symbol)
                     .type(type)
                     .build();
-            var orderMetaDetails = OrderMetaDetails.builder()
-                    .orderId(orderId)
-                    .orderPlacementTime(now)
-                    .orderType(type)
-                    .quantity(quantity)
-                    .amount(price)
-                    .build();
-            if (OrderType.BUY.equals(type)) {
-                buyOrdersQueue.computeIfAbsent(symbol, a -> new PriorityBlockingQueue<>(
-                        10000,
-                        Comparator.comparingDouble(OrderMetaDetails::getAmount).reversed()
-                                .thenComparing(OrderMetaDetails::getOrderPlacementTime)
-                )).offer(orderMetaDetails);
-            } else {
-                sellOrdersQueue.computeIfAbsent(symbol, a -> new PriorityBlockingQueue<>(10000,
-                        Comparator.comparingDouble(OrderMetaDetails::getAmount)
-                                .thenComparing(OrderMetaDetails::getOrderPlacementTime))).offer(orderMetaDetails);
-            }
 
             usersToOrders.computeIfAbsent(userId, a -> new CopyOnWriteArrayList<>()).add(newOrder);
             orders.put(orderId, newOrder);
 
-            executeOrder(newOrder, lock);
+            bookFor(symbol).submit(newOrder);
 
             return orderId;
         } finally {
@@ -83,109 +81,8 @@ public class OrderBookingService implements OrderBook {
         }
     }
 
-    private void executeOrder(Order newOrder, ReentrantLock lock) {
-        try {
-            if (OrderType.BUY.equals(newOrder.type)) {
-                var sellOrdersForSameStock = sellOrdersQueue.getOrDefault(newOrder.symbol, null);
-                if (sellOrdersForSameStock != null) {
-                    cleanFilledOrder(sellOrdersForSameStock);
-                    var askedQuantity = newOrder.quantity - newOrder.filledQuantity;
-                    var bidPrice = newOrder.price;
-
-                    while (askedQuantity > 0 && !sellOrdersForSameStock.isEmpty()) {
-                        var top = sellOrdersForSameStock.peek();
-                        if (top == null || top.amount > bidPrice) {
-                            break;
-                        }
-
-                        Order matchedOrder = orders.get(top.orderId);
-                        if (matchedOrder == null || matchedOrder.status == OrderStatus.CANCELLED) {
-                            sellOrdersForSameStock.poll();
-                            continue;
-                        }
-
-                        int matchQty = Math.min(askedQuantity, top.quantity);
-
-                        matchedOrder.filledQuantity += matchQty;
-                        if (matchedOrder.filledQuantity >= matchedOrder.quantity) {
-                            matchedOrder.status = OrderStatus.FILLED;
-                            sellOrdersForSameStock.poll();
-                        } else {
-                            matchedOrder.status = OrderStatus.PARTIALLY_FILLED;
-                            top.quantity -= matchQty;
-                        }
-
-                        askedQuantity -= matchQty;
-                        newOrder.filledQuantity += matchQty;
-                    }
-
-                    if (newOrder.filledQuantity >= newOrder.quantity) {
-                        newOrder.status = OrderStatus.FILLED;
-                    } else if (newOrder.filledQuantity > 0) {
-                        newOrder.status = OrderStatus.PARTIALLY_FILLED;
-                    }
-                }
-            } else {
-                var buyOrdersForSameStock = buyOrdersQueue.getOrDefault(newOrder.symbol, null);
-                if (buyOrdersForSameStock != null) {
-                    cleanFilledOrder(buyOrdersForSameStock);
-                    var leftOverShares = newOrder.quantity - newOrder.filledQuantity;
-                    var askPrice = newOrder.price;
-
-                    while (leftOverShares > 0 && !buyOrdersForSameStock.isEmpty()) {
-                        var top = buyOrdersForSameStock.peek();
-                        if (top == null || top.amount < askPrice) {
-                            break;
-                        }
-
-                        Order matchedOrder = orders.get(top.orderId);
-                        if (matchedOrder == null || matchedOrder.status == OrderStatus.CANCELLED) {
-                            buyOrdersForSameStock.poll();
-                            continue;
-                        }
-
-                        int matchQty = Math.min(leftOverShares, top.quantity);
-
-                        matchedOrder.filledQuantity += matchQty;
-                        if (matchedOrder.filledQuantity >= matchedOrder.quantity) {
-                            matchedOrder.status = OrderStatus.FILLED;
-                            buyOrdersForSameStock.poll();
-                        } else {
-                            matchedOrder.status = OrderStatus.PARTIALLY_FILLED;
-                            top.quantity -= matchQty;
-                        }
-
-                        leftOverShares -= matchQty;
-                        newOrder.filledQuantity += matchQty;
-                    }
-
-                    if (newOrder.filledQuantity >= newOrder.quantity) {
-                        newOrder.status = OrderStatus.FILLED;
-                    } else if (newOrder.filledQuantity > 0) {
-                        newOrder.status = OrderStatus.PARTIALLY_FILLED;
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Error executing order: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    private void cleanFilledOrder(PriorityBlockingQueue<OrderMetaDetails> orderQueue) {
-        while (!orderQueue.isEmpty()) {
-            OrderMetaDetails top = orderQueue.peek();
-            if (top == null) break;
-
-            Order actualOrder = orders.get(top.orderId);
-            if (actualOrder == null ||
-                    actualOrder.status == OrderStatus.FILLED ||
-                    actualOrder.status == OrderStatus.CANCELLED) {
-                orderQueue.poll();
-            } else {
-                break;
-            }
-        }
+    private SymbolOrderBook bookFor(String symbol) {
+        return books.computeIfAbsent(symbol, k -> new SymbolOrderBook(tradeListener));
     }
 
     @Override
@@ -201,6 +98,7 @@ public class OrderBookingService implements OrderBook {
             if (order.status == OrderStatus.FILLED) {
                 return false;
             }
+            bookFor(order.symbol).cancel(order);
             order.status = OrderStatus.CANCELLED;
             return true;
         } finally {
@@ -214,57 +112,80 @@ public class OrderBookingService implements OrderBook {
         return order != null ? order.status : null;
     }
 
+    /**
+     * Reads the price cached after the last change to the book, without locking
+     */
     @Override
-    public Double getBestBid(String symbol) {
-        PriorityBlockingQueue<OrderMetaDetails> buyOrders = buyOrdersQueue.get(symbol);
-        if (buyOrders == null || buyOrders.isEmpty()) {
-            return null;
-        }
-
-        ReentrantLock lock = symbolLocks.computeIfAbsent(symbol, k -> new ReentrantLock());
-        lock.lock();
-        try {
-            cleanFilledOrder(buyOrders);
-            OrderMetaDetails top = buyOrders.peek();
-            return top != null ? top.amount : null;
-        } finally {
-            lock.unlock();
-        }
+    public Long getBestBidTicks(String symbol) {
+        SymbolOrderBook book = books.get(symbol);
+        return book != null ? priceOrNull(book.getBestBid()) : null;
     }
 
     @Override
-    public Double getBestAsk(String symbol) {
-        PriorityBlockingQueue<OrderMetaDetails> sellOrders = sellOrdersQueue.get(symbol);
-        if (sellOrders == null || sellOrders.isEmpty()) {
-            return null;
+    public Long getBestAskTicks(String symbol) {
+        SymbolOrderBook book = books.get(symbol);
+        return book != null ? priceOrNull(book.getBestAsk()) : null;
+    }
+
+    private static Long priceOrNull(long price) {
+        return price != SymbolOrderBook.NO_PRICE ? price : null;
+    }
+
+    /**
+     * Quantity resting at one price on one side, 0 if the price is not on a tick
+     */
+    public long getDepthAt(String symbol, OrderType side, double price) {
+        long priceTicks;
+        try {
+            priceTicks = tickTable.toTicks(symbol, price);
+        } catch (IllegalArgumentException e) {
+            return 0;
         }
+        return getDepthAtTicks(symbol, side, priceTicks);
+    }
 
+    public long getDepthAtTicks(String symbol, OrderType side, long priceTicks) {
         ReentrantLock lock = symbolLocks.computeIfAbsent(symbol, k -> new ReentrantLock());
         lock.lock();
         try {
-            cleanFilledOrder(sellOrders);
-            OrderMetaDetails top = sellOrders.peek();
-            return top != null ? top.amount : null;
+            SymbolOrderBook book = books.get(symbol);
+            return book != null ? book.getDepthAt(side, priceTicks) : 0;
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Copies of the user's orders, each taken under its symbol's lock so none
+     * is read halfway through a match and none exposes the book's links.
+     */
     @Override
     public List<Order> getUserOrders(String userId) {
         CopyOnWriteArrayList<Order> userOrders = usersToOrders.get(userId);
-        return userOrders != null ? new ArrayList<>(userOrders) : new ArrayList<>();
+        List<Order> copies = new ArrayList<>();
+        if (userOrders == null) {
+            return copies;
+        }
+        for (Order order : userOrders) {
+            ReentrantLock lock = symbolLocks.computeIfAbsent(order.symbol, k -> new ReentrantLock());
+            lock.lock();
+            try {
+                copies.add(order.snapshot());
+            } finally {
+                lock.unlock();
+            }
+        }
+        return copies;
+    }
+
+    @Override
+    public TickTable getTickTable() {
+        return tickTable;
     }
 
+    /**
+     * Nothing to stop: orders are matched on the submitting thread.
+     */
     public void shutdown() {
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            executor.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+package concurrentbiddingsystem;
+
+/**
+ * One preallocated slot of a shard's ring. Producers overwrite the fields in
+ * place and the shard clears the references once it has handled the command.
+ */
+class OrderCommand {
+
+    enum Kind {
+        SUBMIT,
+        CANCEL,
+        // Runs arbitrary work on the shard thread, used for queries
+        TASK
+    }
+
+    Kind kind;
+    String userId;
+    String symbol;
+    OrderType type;
+    ExecutionType execution;
+    long priceTicks;
+    long stopPriceTicks;
+    long quantity;
+    long orderId;
+    OrderResultListener listener;
+    Runnable task;
+
+    void clear() {
+        userId = null;
+        symbol = null;
+        type = null;
+        execution = null;
+        listener = null;
+        task = null;
+    }
+}
@@ -0,0 +1,59 @@
+package concurrentbiddingsystem;
+
+/**
+ * Free list of {@link Order}s for a single thread. Orders are allocated a slab
+ * at a time when the list runs dry, so once the pool has grown to the number of
+ * live orders, acquiring and releasing allocate nothing.
+ */
+class OrderPool {
+
+    private final int slabSize;
+    private Order[] free;
+    private int size;
+    private int allocated;
+
+    OrderPool(int slabSize) {
+        this.slabSize = slabSize;
+        this.free = new Order[slabSize];
+        refill();
+    }
+
+    Order acquire() {
+        if (size == 0) {
+            refill();
+        }
+        Order order = free[--size];
+        free[size] = null;
+        return order;
+    }
+
+    /**
+     * Takes back an order that is no longer in any book or index
+     */
+    void release(Order order) {
+        order.reset();
+        if (size == free.length) {
+            Order[] grown = new Order[free.length * 2];
+            System.arraycopy(free, 0, grown, 0, size);
+            free = grown;
+        }
+        free[size++] = order;
+    }
+
+    /**
+     * Orders created so far, in use or free
+     */
+    int getAllocated() {
+        return allocated;
+    }
+
+    private void refill() {
+        if (free.length < slabSize) {
+            free = new Order[slabSize];
+        }
+        for (int i = 0; i < slabSize; i++) {
+            free[size++] = Order.builder().build();
+        }
+        allocated += slabSize;
+    }
+}
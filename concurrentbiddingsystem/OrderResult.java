@@ -0,0 +1,19 @@
+package concurrentbiddingsystem;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * State of an order right after the engine handled a command for it
+ */
+@AllArgsConstructor
+@Data
+@Builder
+public class OrderResult {
+    // null if the order was rejected
+    private final String orderId;
+    // null if the engine does not know the order
+    private final OrderStatus status;
+    private final long filledQuantity;
+}
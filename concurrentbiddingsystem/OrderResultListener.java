@@ -0,0 +1,18 @@
+package concurrentbiddingsystem;
+
+/**
+ * Receives the outcome of a command on the thread that handled it. The
+ * arguments are primitives and enums, so delivering a result allocates nothing.
+ */
+@FunctionalInterface
+public interface OrderResultListener {
+
+    long REJECTED = -1;
+
+    /**
+     * @param orderId the order's id, or {@link #REJECTED} if the order was invalid
+     *                or the engine failed while handling it
+     * @param status  null if the order is unknown
+     */
+    void onOrderResult(long orderId, OrderStatus status, long filledQuantity);
+}
@@ -1,7 +1,9 @@
 package concurrentbiddingsystem;
 
-enum OrderStatus {
+public enum OrderStatus {
     PENDING,
+    // A stop order waiting for the last trade price to reach its stop
+    PENDING_TRIGGER,
     PARTIALLY_FILLED,
     FILLED,
     CANCELLED
@@ -1,6 +1,6 @@
 package concurrentbiddingsystem;
 
-enum OrderType {
+public enum OrderType {
     BUY,
     SELL
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package concurrentbiddingsystem;
+
+/**
+ * The orders resting at one price, in arrival order. The list is intrusive:
+ * the links live in {@link Order} itself, so appending, taking the head and
+ * unlinking a cancelled order are all O(1) and allocate nothing. An empty
+ * level goes back to its book's pool.
+ */
+class PriceLevel {
+
+    // In ticks; set again each time the book reuses the level
+    long price;
+    private Order head;
+    private Order tail;
+    private int orderCount;
+    private long totalQuantity;
+
+    PriceLevel(long price) {
+        this.price = price;
+    }
+
+    void append(Order order) {
+        order.level = this;
+        order.prev = tail;
+        order.next = null;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        orderCount++;
+        totalQuantity += order.getRemainingQuantity();
+    }
+
+    void remove(Order order) {
+        if (order.prev == null) {
+            head = order.next;
+        } else {
+            order.prev.next = order.next;
+        }
+        if (order.next == null) {
+            tail = order.prev;
+        } else {
+            order.next.prev = order.prev;
+        }
+        orderCount--;
+        totalQuantity -= order.getRemainingQuantity();
+        order.level = null;
+        order.prev = null;
+        order.next = null;
+    }
+
+    /**
+     * Called when a resting order in this level is partially filled
+     */
+    void reduce(long quantity) {
+        totalQuantity -= quantity;
+    }
+
+    Order head() {
+        return head;
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+
+    int getOrderCount() {
+        return orderCount;
+    }
+
+    long getTotalQuantity() {
+        return totalQuantity;
+    }
+}
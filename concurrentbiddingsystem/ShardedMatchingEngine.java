@@ -0,0 +1,541 @@
+package concurrentbiddingsystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Order book where every symbol is pinned to one matching thread.
+ *
+ * Symbols are hashed onto shards. Each shard owns one thread, an
+ * {@link MpscRingBuffer} of commands and the {@link SymbolOrderBook}s and
+ * order state of its symbols, which only that thread touches, so matching
+ * takes no locks. Callers publish a command into the ring and get the result
+ * through a listener or a future; listeners run on the shard thread and must
+ * not block it. A command that fails on the shard still gets an answer, as
+ * {@link OrderResultListener#REJECTED} or an exceptionally completed query,
+ * unless the failed submit already traded or rested, in which case it is
+ * reported as the book left it. After {@link #shutdown()} new commands are
+ * answered the same way at once instead of being queued.
+ *
+ * Order ids are numbers carrying their shard, so a cancel is routed without
+ * any shared lookup. Best prices are read without going through the ring,
+ * and fills can be followed through an {@link ExecutionReportStream}.
+ *
+ * In steady state a shard allocates nothing per order: orders come from an
+ * {@link OrderPool} and go back to it once filled or cancelled, live orders
+ * are indexed by a primitive {@link LongHashMap}, and results reach an
+ * {@link OrderResultListener} as primitives. The final status of the most
+ * recent retired orders is kept in a fixed ring for status queries; older
+ * ones are reported as unknown.
+ */
+public class ShardedMatchingEngine implements OrderBook {
+
+    private static final int DEFAULT_RING_CAPACITY = 1 << 14;
+    // Retired orders per shard whose final status can still be queried, a power of two
+    private static final int RETIRED_HISTORY = 1 << 18;
+    private static final int ORDER_SLAB_SIZE = 1024;
+    // Idle shards spin, then yield, then park for this long between polls
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 50_000;
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final Shard[] shards;
+    private final TickTable tickTable;
+    // null when nobody subscribed to fills
+    private final ExecutionReportStream executionReports;
+    // Written by shard threads when a symbol first trades, read by anyone for best prices
+    private final ConcurrentHashMap<String, SymbolOrderBook> books = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    public ShardedMatchingEngine() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_RING_CAPACITY, new TickTable());
+    }
+
+    /**
+     * @param ringCapacity commands each shard buffers before producers wait, a power of two
+     */
+    public ShardedMatchingEngine(int shardCount, int ringCapacity, TickTable tickTable) {
+        this(shardCount, ringCapacity, tickTable, null);
+    }
+
+    /**
+     * @param executionReports receives every fill from the shard threads; null for none
+     */
+    public ShardedMatchingEngine(int shardCount, int ringCapacity, TickTable tickTable,
+                                 ExecutionReportStream executionReports) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        this.tickTable = tickTable;
+        this.executionReports = executionReports;
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, ringCapacity);
+        }
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    /**
+     * Queues a limit order for its symbol's shard
+     *
+     * @param listener called on the shard thread once the order was matched and rested,
+     *                 or at once with {@link OrderResultListener#REJECTED} if the order is invalid,
+     *                 e.g. a price it uses is not positive, or the engine is shut down
+     */
+    public void submitOrderTicks(String userId, String symbol, OrderType type, long priceTicks, long quantity,
+                                 OrderResultListener listener) {
+        submitOrderTicks(userId, symbol, type, ExecutionType.LIMIT, priceTicks, 0, quantity, listener);
+    }
+
+    /**
+     * Queues an order of any execution type. A stop reports PENDING_TRIGGER
+     * here and executes later on the shard thread, when a trade reaches it.
+     *
+     * @param priceTicks     limit price, ignored for MARKET and STOP
+     * @param stopPriceTicks trigger price for STOP and STOP_LIMIT, ignored otherwise
+     */
+    public void submitOrderTicks(String userId, String symbol, OrderType type, ExecutionType execution,
+                                 long priceTicks, long stopPriceTicks, long quantity,
+                                 OrderResultListener listener) {
+        if (quantity <= 0 || execution == null || !running
+                || !SymbolOrderBook.hasValidPrices(execution, priceTicks, stopPriceTicks)) {
+            listener.onOrderResult(OrderResultListener.REJECTED, null, 0);
+            return;
+        }
+        Shard shard = shardFor(symbol);
+        long sequence = shard.ring.next();
+        OrderCommand command = shard.ring.get(sequence);
+        command.kind = OrderCommand.Kind.SUBMIT;
+        command.userId = userId;
+        command.symbol = symbol;
+        command.type = type;
+        command.execution = execution;
+        command.priceTicks = priceTicks;
+        command.stopPriceTicks = stopPriceTicks;
+        command.quantity = quantity;
+        command.listener = listener;
+        shard.ring.publish(sequence);
+    }
+
+    /**
+     * Converts the price to ticks on the calling thread; an off-tick price is rejected
+     */
+    public void submitOrder(String userId, String symbol, OrderType type, double price, long quantity,
+                            OrderResultListener listener) {
+        long priceTicks;
+        try {
+            priceTicks = tickTable.toTicks(symbol, price);
+        } catch (IllegalArgumentException e) {
+            listener.onOrderResult(OrderResultListener.REJECTED, null, 0);
+            return;
+        }
+        submitOrderTicks(userId, symbol, type, priceTicks, quantity, listener);
+    }
+
+    public CompletableFuture<OrderResult> submitOrderAsync(String userId, String symbol, OrderType type,
+                                                           ExecutionType execution, long priceTicks,
+                                                           long stopPriceTicks, long quantity) {
+        CompletableFuture<OrderResult> result = new CompletableFuture<>();
+        submitOrderTicks(userId, symbol, type, execution, priceTicks, stopPriceTicks, quantity, completing(result));
+        return result;
+    }
+
+    /**
+     * @param listener called on the shard thread with the order's status after
+     *                 the cancel, or null if the order is unknown; at once with
+     *                 {@link OrderResultListener#REJECTED} if the engine is shut down
+     */
+    public void cancelOrder(long orderId, OrderResultListener listener) {
+        if (orderId < 0) {
+            listener.onOrderResult(orderId, null, 0);
+            return;
+        }
+        if (!running) {
+            listener.onOrderResult(OrderResultListener.REJECTED, null, 0);
+            return;
+        }
+        Shard shard = shards[(int) (orderId % shards.length)];
+        long sequence = shard.ring.next();
+        OrderCommand command = shard.ring.get(sequence);
+        command.kind = OrderCommand.Kind.CANCEL;
+        command.orderId = orderId;
+        command.listener = listener;
+        shard.ring.publish(sequence);
+    }
+
+    public CompletableFuture<OrderResult> cancelOrderAsync(String orderId) {
+        CompletableFuture<OrderResult> result = new CompletableFuture<>();
+        cancelOrder(parseOrderId(orderId), completing(result));
+        return result;
+    }
+
+    private static OrderResultListener completing(CompletableFuture<OrderResult> result) {
+        return (orderId, status, filledQuantity) -> result.complete(new OrderResult(
+                orderId >= 0 ? Long.toString(orderId) : null, status, filledQuantity));
+    }
+
+    @Override
+    public String submitOrderTicks(String userId, String symbol, OrderType type, ExecutionType execution,
+                                   long priceTicks, long stopPriceTicks, long quantity) {
+        return submitOrderAsync(userId, symbol, type, execution, priceTicks, stopPriceTicks, quantity)
+                .join().getOrderId();
+    }
+
+    @Override
+    public boolean cancelOrder(String orderId) {
+        return cancelOrderAsync(orderId).join().getStatus() == OrderStatus.CANCELLED;
+    }
+
+    /**
+     * Known for live orders and the most recent retired ones
+     */
+    @Override
+    public OrderStatus getOrderStatus(String orderId) {
+        long id = parseOrderId(orderId);
+        if (id < 0) {
+            return null;
+        }
+        return query(shards[(int) (id % shards.length)], shard -> shard.statusOf(id)).join();
+    }
+
+    @Override
+    public Long getBestBidTicks(String symbol) {
+        SymbolOrderBook book = books.get(symbol);
+        return book != null ? priceOrNull(book.getBestBid()) : null;
+    }
+
+    @Override
+    public Long getBestAskTicks(String symbol) {
+        SymbolOrderBook book = books.get(symbol);
+        return book != null ? priceOrNull(book.getBestAsk()) : null;
+    }
+
+    private static Long priceOrNull(long price) {
+        return price != SymbolOrderBook.NO_PRICE ? price : null;
+    }
+
+    /**
+     * Quantity resting at one price on one side, 0 if the price is not on a tick
+     */
+    public long getDepthAt(String symbol, OrderType side, double price) {
+        long priceTicks;
+        try {
+            priceTicks = tickTable.toTicks(symbol, price);
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+        return getDepthAtTicks(symbol, side, priceTicks);
+    }
+
+    public long getDepthAtTicks(String symbol, OrderType side, long priceTicks) {
+        return query(shardFor(symbol), shard -> {
+            SymbolOrderBook book = books.get(symbol);
+            return book != null ? book.getDepthAt(side, priceTicks) : 0L;
+        }).join();
+    }
+
+    @Override
+    public TickTable getTickTable() {
+        return tickTable;
+    }
+
+    /**
+     * Copies of the user's resting orders. They may sit on every shard, so each is asked.
+     */
+    @Override
+    public List<Order> getUserOrders(String userId) {
+        List<CompletableFuture<List<Order>>> parts = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            parts.add(query(shard, s -> {
+                List<Order> copies = new ArrayList<>();
+                s.liveOrders.forEachValue(order -> {
+                    if (order.userId.equals(userId)) {
+                        copies.add(order.snapshot());
+                    }
+                });
+                return copies;
+            }));
+        }
+        List<Order> result = new ArrayList<>();
+        for (CompletableFuture<List<Order>> part : parts) {
+            result.addAll(part.join());
+        }
+        result.sort((a, b) -> Long.compare(a.timestamp, b.timestamp));
+        return result;
+    }
+
+    /**
+     * Orders the shards' pools have created, in use or free
+     */
+    int getAllocatedOrders() {
+        int allocated = 0;
+        for (Shard shard : shards) {
+            allocated += query(shard, s -> s.pool.getAllocated()).join();
+        }
+        return allocated;
+    }
+
+    /**
+     * Runs a read on the shard thread, in order with the shard's commands
+     *
+     * @return the read's result, failed with IllegalStateException once the engine is shut down
+     */
+    private <T> CompletableFuture<T> query(Shard shard, Function<Shard, T> read) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Matching engine is shut down"));
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long sequence = shard.ring.next();
+        OrderCommand command = shard.ring.get(sequence);
+        command.kind = OrderCommand.Kind.TASK;
+        command.task = () -> {
+            try {
+                result.complete(read.apply(shard));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        };
+        shard.ring.publish(sequence);
+        return result;
+    }
+
+    private Shard shardFor(String symbol) {
+        int hash = symbol.hashCode();
+        // Spread the high bits, as HashMap does, before reducing
+        return shards[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % shards.length];
+    }
+
+    private static long parseOrderId(String orderId) {
+        try {
+            return orderId != null ? Long.parseLong(orderId) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Commands buffered across all shards and not yet handled
+     */
+    public int getPendingCommands() {
+        int pending = 0;
+        for (Shard shard : shards) {
+            pending += shard.ring.size();
+        }
+        return pending;
+    }
+
+    /**
+     * Stops the shard threads once they have handled what is already queued.
+     * Commands issued afterwards are rejected rather than queued.
+     */
+    public void shutdown() {
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+            try {
+                shard.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private final class Shard implements Runnable, TradeListener {
+        private final int index;
+        private final MpscRingBuffer<OrderCommand> ring;
+        private final Thread thread;
+        private final Consumer<OrderCommand> handler = this::handle;
+        private final OrderPool pool = new OrderPool(ORDER_SLAB_SIZE);
+        private final LongHashMap<Order> liveOrders = new LongHashMap<>(ORDER_SLAB_SIZE);
+        // Symbols this shard owns; looked up here so the hot path needs no lambda for computeIfAbsent
+        private final Map<String, SymbolOrderBook> ownBooks = new HashMap<>();
+        // Final status of retired orders by sequence, tagged with the id so a reused slot is not misread
+        private final long[] retiredIds = new long[RETIRED_HISTORY];
+        private final byte[] retiredStatuses = new byte[RETIRED_HISTORY];
+        private long nextSequence;
+        // The order being submitted; only submit() retires it, even if stops it triggers fill it as a maker
+        private Order submitting;
+
+        Shard(int index, int ringCapacity) {
+            this.index = index;
+            this.ring = new MpscRingBuffer<>(ringCapacity, OrderCommand::new);
+            this.thread = new Thread(this, "matching-shard-" + index);
+            this.thread.setDaemon(true);
+            Arrays.fill(retiredIds, -1);
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (running || ring.size() > 0) {
+                if (ring.drain(handler) > 0) {
+                    idle = 0;
+                } else if (idle < SPIN_TRIES) {
+                    idle++;
+                    Thread.onSpinWait();
+                } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+                    idle++;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        }
+
+        private void handle(OrderCommand command) {
+            try {
+                switch (command.kind) {
+                    case SUBMIT:
+                        submit(command);
+                        break;
+                    case CANCEL:
+                        cancel(command);
+                        break;
+                    default:
+                        command.task.run();
+                }
+            } catch (RuntimeException e) {
+                logFailure(command, e);
+                // The caller may be blocked on this command, so it always hears back
+                if (command.listener != null) {
+                    respond(command, OrderResultListener.REJECTED, null, 0);
+                }
+            } finally {
+                command.clear();
+            }
+        }
+
+        private void logFailure(OrderCommand command, RuntimeException e) {
+            System.err.println("Error handling " + command.kind + " on " + thread.getName() + ": " + e);
+            e.printStackTrace();
+        }
+
+        /**
+         * Calls the command's listener once; it is cleared first so a failure
+         * inside the listener does not lead to a second call
+         */
+        private void respond(OrderCommand command, long orderId, OrderStatus status, long filledQuantity) {
+            OrderResultListener listener = command.listener;
+            command.listener = null;
+            listener.onOrderResult(orderId, status, filledQuantity);
+        }
+
+        private void submit(OrderCommand command) {
+            long id = nextSequence++ * shards.length + index;
+            Order order = pool.acquire();
+            order.id = id;
+            order.userId = command.userId;
+            order.symbol = command.symbol;
+            order.type = command.type;
+            order.execution = command.execution;
+            order.priceTicks = command.priceTicks;
+            order.stopPriceTicks = command.stopPriceTicks;
+            order.quantity = command.quantity;
+            order.status = OrderStatus.PENDING;
+            order.timestamp = System.currentTimeMillis();
+
+            submitting = order;
+            try {
+                bookFor(command.symbol).submit(order);
+            } catch (RuntimeException e) {
+                if (order.level == null && order.filledQuantity == 0) {
+                    // The order never reached the book, so the caller can be told it was rejected
+                    pool.release(order);
+                    throw e;
+                }
+                // It traded or rested, so it is indexed or retired and reported as the book left it
+                logFailure(command, e);
+            } finally {
+                submitting = null;
+            }
+
+            // Read after the whole submit, so a resting remainder its own stops filled reports FILLED
+            OrderStatus status = order.status;
+            long filledQuantity = order.filledQuantity;
+            if (order.level != null) {
+                liveOrders.put(id, order);
+            } else {
+                retire(order);
+            }
+            respond(command, id, status, filledQuantity);
+        }
+
+        private SymbolOrderBook bookFor(String symbol) {
+            SymbolOrderBook book = ownBooks.get(symbol);
+            if (book == null) {
+                book = new SymbolOrderBook(this);
+                ownBooks.put(symbol, book);
+                books.put(symbol, book);
+            }
+            return book;
+        }
+
+        /**
+         * Retires makers as soon as they are filled. The order being submitted is
+         * left to submit(), also when a stop it triggered fills its resting remainder.
+         */
+        @Override
+        public void onTrade(Order maker, Order taker, long priceTicks, long quantity) {
+            // Reported before the maker can go back to the pool
+            if (executionReports != null) {
+                executionReports.onTrade(maker, taker, priceTicks, quantity);
+            }
+            if (maker.status == OrderStatus.FILLED && maker != submitting) {
+                liveOrders.remove(maker.id);
+                retire(maker);
+            }
+        }
+
+        /**
+         * A triggered stop was live while parked, so it leaves the index here
+         */
+        @Override
+        public void onStopCompleted(Order order) {
+            liveOrders.remove(order.id);
+            retire(order);
+        }
+
+        private void cancel(OrderCommand command) {
+            Order order = liveOrders.remove(command.orderId);
+            if (order == null) {
+                respond(command, command.orderId, retiredStatus(command.orderId), 0);
+                return;
+            }
+            ownBooks.get(order.symbol).cancel(order);
+            order.status = OrderStatus.CANCELLED;
+            long filledQuantity = order.filledQuantity;
+            retire(order);
+            respond(command, command.orderId, OrderStatus.CANCELLED, filledQuantity);
+        }
+
+        private void retire(Order order) {
+            int slot = (int) (order.id / shards.length) & (RETIRED_HISTORY - 1);
+            retiredIds[slot] = order.id;
+            retiredStatuses[slot] = (byte) order.status.ordinal();
+            pool.release(order);
+        }
+
+        private OrderStatus retiredStatus(long id) {
+            int slot = (int) (id / shards.length) & (RETIRED_HISTORY - 1);
+            return retiredIds[slot] == id ? STATUSES[retiredStatuses[slot]] : null;
+        }
+
+        OrderStatus statusOf(long id) {
+            Order order = liveOrders.get(id);
+            return order != null ? order.status : retiredStatus(id);
+        }
+    }
+}
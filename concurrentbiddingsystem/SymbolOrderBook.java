@@ -0,0 +1,369 @@
+package concurrentbiddingsystem;
+
+import java.util.Arrays;
+
+/**
+ * Resting orders of one symbol, as price levels sorted by price with a FIFO
+ * of orders in each.
+ *
+ * Each side keeps its levels in a sorted array with the best level last, so
+ * reading the best price is O(1), finding a level is a binary search, and
+ * adding or removing a level near the top of the book, where nearly all the
+ * activity is, shifts only the few levels above it. Prices stay primitive
+ * and emptied levels are pooled, so once the arrays have grown to the book's
+ * depth the book allocates nothing. Cancelling unlinks the order through its
+ * own level pointer, and nothing cancelled or filled stays in the book.
+ *
+ * Besides limit orders the book runs market, immediate-or-cancel and
+ * fill-or-kill orders, and parks stop orders by stop price until the last
+ * trade reaches them; everything a submit triggers runs inside that submit.
+ *
+ * Not thread-safe: the owner serializes access, and only the cached best
+ * prices may be read without it.
+ */
+class SymbolOrderBook {
+
+    static final long NO_PRICE = Long.MIN_VALUE;
+    private static final int INITIAL_LEVELS = 64;
+
+    private final Side bids = new Side(true);
+    private final Side asks = new Side(false);
+    // Parked stops keyed by stop price; the next to trigger is the lowest buy stop and the highest sell stop
+    private final Side buyStops = new Side(false);
+    private final Side sellStops = new Side(true);
+    private long lastTradePrice = NO_PRICE;
+    private final TradeListener tradeListener;
+    private PriceLevel[] freeLevels = new PriceLevel[INITIAL_LEVELS];
+    private int freeLevelCount;
+    // Published for lock-free reads; NO_PRICE when the side is empty
+    private volatile long bestBid = NO_PRICE;
+    private volatile long bestAsk = NO_PRICE;
+
+    SymbolOrderBook() {
+        this(TradeListener.NONE);
+    }
+
+    SymbolOrderBook(TradeListener tradeListener) {
+        this.tradeListener = tradeListener;
+    }
+
+    /**
+     * Whether every price the execution type uses is a positive tick count.
+     * Others would collide with {@link #NO_PRICE} or overflow the negated keys
+     * a side sorts by, so callers reject them before an order reaches a book.
+     */
+    static boolean hasValidPrices(ExecutionType execution, long priceTicks, long stopPriceTicks) {
+        switch (execution) {
+            case MARKET:
+                return true;
+            case STOP:
+                return stopPriceTicks > 0;
+            case STOP_LIMIT:
+                return priceTicks > 0 && stopPriceTicks > 0;
+            default:
+                return priceTicks > 0;
+        }
+    }
+
+    /**
+     * Executes the order as its {@link ExecutionType} says, or parks it if it
+     * is a stop the last trade has not reached, then runs any stops its trades
+     * triggered.
+     *
+     * Triggered stops trade against the whole book, including what the
+     * submitted order just rested, so the submitted order's status and fill
+     * can still change after it rests and before this returns. A caller
+     * should read them only afterwards, and may find it already filled and
+     * out of the book, in which case {@link TradeListener#onTrade} has
+     * reported it as a filled maker.
+     */
+    void submit(Order order) {
+        ExecutionType execution = order.getExecutionOrDefault();
+        if ((execution == ExecutionType.STOP || execution == ExecutionType.STOP_LIMIT) && !isTriggered(order)) {
+            order.status = OrderStatus.PENDING_TRIGGER;
+            park(order);
+            return;
+        }
+        execute(order);
+        triggerStops();
+        publishBestPrices();
+    }
+
+    private void execute(Order order) {
+        ExecutionType execution = order.getExecutionOrDefault();
+        switch (execution) {
+            case MARKET:
+            case STOP:
+                match(order, order.type == OrderType.BUY ? Long.MAX_VALUE : Long.MIN_VALUE);
+                break;
+            case FOK:
+                // Checked before anything moves, so a kill leaves the book untouched
+                if (matchableQuantity(order) >= order.getRemainingQuantity()) {
+                    match(order, order.priceTicks);
+                }
+                break;
+            default:
+                match(order, order.priceTicks);
+        }
+
+        if (order.getRemainingQuantity() > 0) {
+            if (execution == ExecutionType.LIMIT || execution == ExecutionType.STOP_LIMIT) {
+                rest(order);
+            } else {
+                order.status = OrderStatus.CANCELLED;
+            }
+        }
+    }
+
+    /**
+     * Quantity the opposite side offers at the order's limit or better. Walks
+     * levels from the best and stops once the order would be filled, reading
+     * each level's running total rather than its orders.
+     */
+    private long matchableQuantity(Order order) {
+        boolean buy = order.type == OrderType.BUY;
+        Side opposite = buy ? asks : bids;
+        long needed = order.getRemainingQuantity();
+        long available = 0;
+        for (int i = opposite.size - 1; i >= 0 && available < needed; i--) {
+            PriceLevel level = opposite.levels[i];
+            if (buy ? level.price > order.priceTicks : level.price < order.priceTicks) {
+                break;
+            }
+            available += level.getTotalQuantity();
+        }
+        return available;
+    }
+
+    private void match(Order taker, long limit) {
+        boolean buy = taker.type == OrderType.BUY;
+        Side opposite = buy ? asks : bids;
+        PriceLevel level = opposite.best();
+
+        while (level != null && taker.getRemainingQuantity() > 0
+                && (buy ? level.price <= limit : level.price >= limit)) {
+            Order maker = level.head();
+            long quantity = Math.min(taker.getRemainingQuantity(), maker.getRemainingQuantity());
+            fill(maker, quantity);
+            fill(taker, quantity);
+            level.reduce(quantity);
+
+            long price = level.price;
+            lastTradePrice = price;
+            if (maker.getRemainingQuantity() == 0) {
+                level.remove(maker);
+                if (level.isEmpty()) {
+                    opposite.removeBest();
+                    releaseLevel(level);
+                    level = opposite.best();
+                }
+            }
+            tradeListener.onTrade(maker, taker, price, quantity);
+        }
+    }
+
+    private static void fill(Order order, long quantity) {
+        order.filledQuantity += quantity;
+        order.status = order.filledQuantity >= order.quantity ? OrderStatus.FILLED : OrderStatus.PARTIALLY_FILLED;
+    }
+
+    private void rest(Order order) {
+        append(order.type == OrderType.BUY ? bids : asks, order.priceTicks, order);
+    }
+
+    private void park(Order order) {
+        append(order.type == OrderType.BUY ? buyStops : sellStops, order.stopPriceTicks, order);
+    }
+
+    private void append(Side side, long price, Order order) {
+        int index = side.indexOf(price);
+        PriceLevel level;
+        if (index >= 0) {
+            level = side.levels[index];
+        } else {
+            level = acquireLevel(price);
+            side.insert(-index - 1, level);
+        }
+        level.append(order);
+    }
+
+    private boolean isTriggered(Order stop) {
+        if (lastTradePrice == NO_PRICE) {
+            return false;
+        }
+        return stop.type == OrderType.BUY ? lastTradePrice >= stop.stopPriceTicks
+                : lastTradePrice <= stop.stopPriceTicks;
+    }
+
+    /**
+     * Executes parked stops the last trade price has reached, oldest first
+     * within a stop price, until the trades they make trigger no more
+     */
+    private void triggerStops() {
+        while (lastTradePrice != NO_PRICE) {
+            Side side;
+            PriceLevel level = buyStops.best();
+            if (level != null && level.price <= lastTradePrice) {
+                side = buyStops;
+            } else {
+                level = sellStops.best();
+                if (level == null || level.price < lastTradePrice) {
+                    return;
+                }
+                side = sellStops;
+            }
+
+            Order stop = level.head();
+            level.remove(stop);
+            if (level.isEmpty()) {
+                side.removeBest();
+                releaseLevel(level);
+            }
+            stop.status = OrderStatus.PENDING;
+            execute(stop);
+            if (stop.level == null) {
+                tradeListener.onStopCompleted(stop);
+            }
+        }
+    }
+
+    /**
+     * Takes a resting or parked order out of the book. Call it before changing the order's status.
+     *
+     * @return false if the order was not in the book
+     */
+    boolean cancel(Order order) {
+        PriceLevel level = order.level;
+        if (level == null) {
+            return false;
+        }
+        level.remove(order);
+        if (level.isEmpty()) {
+            boolean buy = order.type == OrderType.BUY;
+            Side side = order.status == OrderStatus.PENDING_TRIGGER
+                    ? (buy ? buyStops : sellStops) : (buy ? bids : asks);
+            side.remove(side.indexOf(level.price));
+            releaseLevel(level);
+        }
+        publishBestPrices();
+        return true;
+    }
+
+    private PriceLevel acquireLevel(long price) {
+        PriceLevel level = freeLevelCount > 0 ? freeLevels[--freeLevelCount] : new PriceLevel(price);
+        level.price = price;
+        return level;
+    }
+
+    private void releaseLevel(PriceLevel level) {
+        if (freeLevelCount == freeLevels.length) {
+            PriceLevel[] grown = new PriceLevel[freeLevels.length * 2];
+            System.arraycopy(freeLevels, 0, grown, 0, freeLevelCount);
+            freeLevels = grown;
+        }
+        freeLevels[freeLevelCount++] = level;
+    }
+
+    private void publishBestPrices() {
+        PriceLevel bestBidLevel = bids.best();
+        PriceLevel bestAskLevel = asks.best();
+        bestBid = bestBidLevel != null ? bestBidLevel.price : NO_PRICE;
+        bestAsk = bestAskLevel != null ? bestAskLevel.price : NO_PRICE;
+    }
+
+    /**
+     * @return the best bid in ticks, or {@link #NO_PRICE}
+     */
+    long getBestBid() {
+        return bestBid;
+    }
+
+    /**
+     * @return the best ask in ticks, or {@link #NO_PRICE}
+     */
+    long getBestAsk() {
+        return bestAsk;
+    }
+
+    /**
+     * Total quantity resting at the price on one side, 0 if there is no such level
+     */
+    long getDepthAt(OrderType side, long price) {
+        Side levels = side == OrderType.BUY ? bids : asks;
+        int index = levels.indexOf(price);
+        return index >= 0 ? levels.levels[index].getTotalQuantity() : 0;
+    }
+
+    /**
+     * @return the price of the last trade in ticks, or {@link #NO_PRICE}
+     */
+    long getLastTradePrice() {
+        return lastTradePrice;
+    }
+
+    int getLevelCount(OrderType side) {
+        return (side == OrderType.BUY ? bids : asks).size;
+    }
+
+    /**
+     * Levels of one side sorted from worst to best. On a side whose best price
+     * is the lowest, prices are stored negated so every side sorts ascending
+     * and the best level is always last.
+     */
+    private static final class Side {
+        private final boolean highestFirst;
+        private long[] keys = new long[INITIAL_LEVELS];
+        private PriceLevel[] levels = new PriceLevel[INITIAL_LEVELS];
+        private int size;
+
+        Side(boolean highestFirst) {
+            this.highestFirst = highestFirst;
+        }
+
+        PriceLevel best() {
+            return size > 0 ? levels[size - 1] : null;
+        }
+
+        /**
+         * @return the level's index, or -(insertion point) - 1 as in {@link Arrays#binarySearch}
+         */
+        int indexOf(long price) {
+            long key = highestFirst ? price : -price;
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < key) {
+                    low = mid + 1;
+                } else if (keys[mid] > key) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insert(int index, PriceLevel level) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                levels = Arrays.copyOf(levels, size * 2);
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(levels, index, levels, index + 1, size - index);
+            keys[index] = highestFirst ? level.price : -level.price;
+            levels[index] = level;
+            size++;
+        }
+
+        void remove(int index) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(levels, index + 1, levels, index, size - index - 1);
+            levels[--size] = null;
+        }
+
+        void removeBest() {
+            levels[--size] = null;
+        }
+    }
+}
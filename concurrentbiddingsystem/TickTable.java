@@ -0,0 +1,65 @@
+package concurrentbiddingsystem;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tick size of each symbol, for converting between decimal prices and the
+ * whole number of ticks the books store and compare.
+ */
+public class TickTable {
+
+    public static final double DEFAULT_TICK_SIZE = 0.01;
+    // How far from a whole tick a price may be, in ticks, to absorb decimal representation error
+    private static final double TOLERANCE = 1e-6;
+
+    private final double defaultTickSize;
+    private final ConcurrentHashMap<String, Double> tickSizes = new ConcurrentHashMap<>();
+
+    public TickTable() {
+        this(DEFAULT_TICK_SIZE);
+    }
+
+    public TickTable(double defaultTickSize) {
+        this.defaultTickSize = requirePositive(defaultTickSize);
+    }
+
+    public TickTable withTickSize(String symbol, double tickSize) {
+        tickSizes.put(symbol, requirePositive(tickSize));
+        return this;
+    }
+
+    public double getTickSize(String symbol) {
+        Double tickSize = tickSizes.get(symbol);
+        return tickSize != null ? tickSize : defaultTickSize;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the price is not a whole number of the symbol's ticks
+     */
+    public long toTicks(String symbol, double price) {
+        double ticks = price / getTickSize(symbol);
+        long rounded = Math.round(ticks);
+        if (Double.isNaN(ticks) || Math.abs(ticks - rounded) > TOLERANCE) {
+            throw new IllegalArgumentException(
+                    "Price " + price + " is not a multiple of " + symbol + "'s tick size " + getTickSize(symbol));
+        }
+        return rounded;
+    }
+
+    public double toPrice(String symbol, long ticks) {
+        double tickSize = getTickSize(symbol);
+        // Dividing by the whole ticks per unit rounds once, so 15025 cent ticks come back as 150.25 exactly
+        double ticksPerUnit = Math.rint(1 / tickSize);
+        if (tickSize < 1 && Math.abs(ticksPerUnit * tickSize - 1) < TOLERANCE) {
+            return ticks / ticksPerUnit;
+        }
+        return ticks * tickSize;
+    }
+
+    private static double requirePositive(double tickSize) {
+        if (!(tickSize > 0)) {
+            throw new IllegalArgumentException("Tick size must be positive: " + tickSize);
+        }
+        return tickSize;
+    }
+}
@@ -0,0 +1,22 @@
+package concurrentbiddingsystem;
+
+/**
+ * Told about every fill a {@link SymbolOrderBook} makes, on the thread that owns the book
+ */
+interface TradeListener {
+
+    TradeListener NONE = (maker, taker, priceTicks, quantity) -> { };
+
+    /**
+     * Called once both orders are updated; a maker that is now filled has
+     * already left the book.
+     */
+    void onTrade(Order maker, Order taker, long priceTicks, long quantity);
+
+    /**
+     * A stop order that another order's trades triggered executed and did not
+     * rest, so it is filled or cancelled. The order being submitted is left to the caller.
+     */
+    default void onStopCompleted(Order order) {
+    }
+}
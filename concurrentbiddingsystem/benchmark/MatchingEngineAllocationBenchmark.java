@@ -0,0 +1,85 @@
+package concurrentbiddingsystem.benchmark;
+
+import concurrentbiddingsystem.OrderResultListener;
+import concurrentbiddingsystem.OrderType;
+import concurrentbiddingsystem.ShardedMatchingEngine;
+import concurrentbiddingsystem.TickTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state allocation of the sharded engine's matching path, on one shard
+ * whose book holds {@link #RESTING_ORDERS} orders away from the mid. Each
+ * operation rests a sell at the mid and crosses it with a buy, so both orders
+ * go through the ring, the book and the pool and then retire.
+ *
+ * The GC profiler's gc.alloc.rate.norm counts every thread's allocation,
+ * including the shard thread's, so it should read close to 0 B/op. Run
+ * {@link #main} for the profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class MatchingEngineAllocationBenchmark {
+
+    static final int RESTING_ORDERS = 10_000;
+    static final int PRICE_LEVELS = 100;
+    private static final long MID = 100_000;
+    private static final String SYMBOL = "BENCH";
+    private static final OrderResultListener IGNORE = (orderId, status, filledQuantity) -> { };
+
+    private ShardedMatchingEngine engine;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        engine = new ShardedMatchingEngine(1, 1 << 14, new TickTable());
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < RESTING_ORDERS; i++) {
+            // Bids below the mid and asks above it never cross
+            int offset = 1 + random.nextInt(PRICE_LEVELS);
+            boolean buy = random.nextBoolean();
+            engine.submitOrderTicks("user-" + i, SYMBOL, buy ? OrderType.BUY : OrderType.SELL,
+                    buy ? MID - offset : MID + offset, 1 + random.nextInt(100), IGNORE);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public void restAndCross() {
+        engine.submitOrderTicks("maker", SYMBOL, OrderType.SELL, MID, 10, IGNORE);
+        engine.submitOrderTicks("taker", SYMBOL, OrderType.BUY, MID, 10, IGNORE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MatchingEngineAllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,145 @@
+package concurrentbiddingsystem.benchmark;
+
+import concurrentbiddingsystem.OrderBook;
+import concurrentbiddingsystem.OrderBookingService;
+import concurrentbiddingsystem.OrderType;
+import concurrentbiddingsystem.QueueBasedOrderBookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue-based matching against the price-level book on one symbol holding
+ * {@link #RESTING_ORDERS} resting orders over {@link #PRICE_LEVELS} prices
+ * per side:
+ * <ul>
+ *   <li>restAndCancel: add a non-crossing order and cancel the oldest one, the
+ *   churn of quoting; the queue keeps cancelled orders until they surface</li>
+ *   <li>crossAndReplenish: an order that takes the best level, then one that
+ *   puts the same quantity back, so the book keeps its shape</li>
+ *   <li>bestBid: reading the top of the book</li>
+ * </ul>
+ *
+ * Order parameters are generated up front, and orders are spread over
+ * {@link #SEQUENCE_LENGTH} users so no user's order list grows large enough to
+ * dominate the cost. Run {@link #main} for the GC profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class OrderBookBenchmark {
+
+    static final int RESTING_ORDERS = 10_000;
+    static final int PRICE_LEVELS = 100;
+    private static final double MID = 1000.0;
+    private static final String SYMBOL = "BENCH";
+    /** Precomputed order parameters, a power of two so they wrap with a mask. */
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+
+    @Param({"QUEUE", "PRICE_LEVEL"})
+    public Implementation implementation;
+
+    public enum Implementation {
+        QUEUE, PRICE_LEVEL
+    }
+
+    private OrderBook book;
+    private String[] users;
+    private OrderType[] types;
+    private double[] restingPrices;
+    private int[] quantities;
+    private String[] restingIds;
+    private int next;
+    private int oldest;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        book = implementation == Implementation.QUEUE
+                ? new QueueBasedOrderBookingService() : new OrderBookingService();
+
+        SplittableRandom random = new SplittableRandom(42);
+        users = new String[SEQUENCE_LENGTH];
+        types = new OrderType[SEQUENCE_LENGTH];
+        restingPrices = new double[SEQUENCE_LENGTH];
+        quantities = new int[SEQUENCE_LENGTH];
+        for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+            users[i] = "user-" + i;
+            types[i] = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+            // Bids below the mid and asks above it never cross
+            int offset = 1 + random.nextInt(PRICE_LEVELS);
+            restingPrices[i] = types[i] == OrderType.BUY ? MID - offset : MID + offset;
+            quantities[i] = 1 + random.nextInt(100);
+        }
+
+        restingIds = new String[RESTING_ORDERS];
+        for (int i = 0; i < RESTING_ORDERS; i++) {
+            restingIds[i] = book.submitOrder(users[i], SYMBOL, types[i], restingPrices[i], quantities[i]);
+        }
+        next = RESTING_ORDERS;
+        oldest = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (book instanceof QueueBasedOrderBookingService) {
+            ((QueueBasedOrderBookingService) book).shutdown();
+        }
+    }
+
+    @Benchmark
+    public boolean restAndCancel() {
+        int i = next++ & (SEQUENCE_LENGTH - 1);
+        String id = book.submitOrder(users[i], SYMBOL, types[i], restingPrices[i], quantities[i]);
+        boolean cancelled = book.cancelOrder(restingIds[oldest]);
+        restingIds[oldest] = id;
+        oldest = (oldest + 1) % RESTING_ORDERS;
+        return cancelled;
+    }
+
+    @Benchmark
+    public String crossAndReplenish() {
+        int i = next++ & (SEQUENCE_LENGTH - 1);
+        OrderType taker = types[i];
+        Double best = taker == OrderType.BUY ? book.getBestAsk(SYMBOL) : book.getBestBid(SYMBOL);
+        if (best == null) {
+            return null;
+        }
+        book.submitOrder(users[i], SYMBOL, taker, best, quantities[i]);
+        OrderType maker = taker == OrderType.BUY ? OrderType.SELL : OrderType.BUY;
+        return book.submitOrder(users[(i + 1) & (SEQUENCE_LENGTH - 1)], SYMBOL, maker, best, quantities[i]);
+    }
+
+    @Benchmark
+    public Double bestBid() {
+        return book.getBestBid(SYMBOL);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OrderBookBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,75 @@
+package ratelimiter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Outcome of {@link RateLimiter#allowRequestsBulk}: permits requested and granted per identifier.
+ */
+public class BulkGrantResult {
+
+    private final Map<String, Integer> requested;
+    private final Map<String, Integer> granted;
+
+    public BulkGrantResult(int expectedIdentifiers) {
+        this.requested = new LinkedHashMap<>(expectedIdentifiers * 2);
+        this.granted = new LinkedHashMap<>(expectedIdentifiers * 2);
+    }
+
+    void record(String identifier, int requestedPermits, int grantedPermits) {
+        requested.put(identifier, requestedPermits);
+        granted.put(identifier, grantedPermits);
+    }
+
+    public int getGranted(String identifier) {
+        return granted.getOrDefault(identifier, 0);
+    }
+
+    public int getRequested(String identifier) {
+        return requested.getOrDefault(identifier, 0);
+    }
+
+    public boolean isFullyGranted(String identifier) {
+        return getRequested(identifier) > 0 && getGranted(identifier) == getRequested(identifier);
+    }
+
+    public boolean isPartiallyGranted(String identifier) {
+        int grantedPermits = getGranted(identifier);
+        return grantedPermits > 0 && grantedPermits < getRequested(identifier);
+    }
+
+    public Set<String> getPartiallyGrantedIdentifiers() {
+        Set<String> partial = new LinkedHashSet<>();
+        granted.forEach((identifier, grantedPermits) -> {
+            if (isPartiallyGranted(identifier)) {
+                partial.add(identifier);
+            }
+        });
+        return partial;
+    }
+
+    public Set<String> getDeniedIdentifiers() {
+        Set<String> denied = new LinkedHashSet<>();
+        granted.forEach((identifier, grantedPermits) -> {
+            if (grantedPermits == 0 && getRequested(identifier) > 0) {
+                denied.add(identifier);
+            }
+        });
+        return denied;
+    }
+
+    public int getTotalGranted() {
+        return granted.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public int getTotalRequested() {
+        return requested.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public Map<String, Integer> getGrantedByIdentifier() {
+        return Collections.unmodifiableMap(granted);
+    }
+}
@@ -0,0 +1,70 @@
+package ratelimiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Time source refreshed by one background thread about once a millisecond.
+ * Reading it is a single volatile load, which is cheaper than
+ * {@link System#nanoTime()} on a hot path whose windows are much longer
+ * than the tick.
+ */
+public class CoarseTimeSource implements TimeSource, AutoCloseable {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static volatile CoarseTimeSource shared;
+
+    private final Thread ticker;
+    private volatile long nanos;
+    private volatile boolean running = true;
+
+    public CoarseTimeSource() {
+        this.nanos = System.nanoTime();
+        this.ticker = new Thread(this::tick, "coarse-time-source");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    /**
+     * One instance per JVM so limiters do not each start a ticking thread.
+     * Closing it is a no-op, since other limiters may still be reading it.
+     */
+    public static CoarseTimeSource shared() {
+        CoarseTimeSource instance = shared;
+        if (instance == null) {
+            synchronized (CoarseTimeSource.class) {
+                instance = shared;
+                if (instance == null) {
+                    instance = new CoarseTimeSource();
+                    shared = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    private void tick() {
+        while (running) {
+            nanos = System.nanoTime();
+            LockSupport.parkNanos(TICK_NANOS);
+        }
+    }
+
+    @Override
+    public long nanoTime() {
+        return nanos;
+    }
+
+    /**
+     * Stops the ticker of an instance created with the constructor.
+     */
+    @Override
+    public void close() {
+        if (this == shared) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+}
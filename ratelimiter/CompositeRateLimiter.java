@@ -0,0 +1,98 @@
+package ratelimiter;
+
+import java.util.List;
+
+/**
+ * Enforces several limits (per user, per API key, per endpoint, global, ...) in
+ * one call with all-or-nothing semantics.
+ *
+ * Rules are checked in order and each grant is a reservation. If a later rule
+ * denies, the earlier reservations are refunded, so a denied request does not
+ * use up quota in the dimensions that allowed it. Between reservation and
+ * refund, other requests can see those permits as taken. Put the rule most
+ * likely to deny first to keep rollbacks rare.
+ */
+public class CompositeRateLimiter {
+
+    private final RateLimitRule[] rules;
+    private final RateLimiter[] limiters;
+
+    public CompositeRateLimiter(List<RateLimitRule> rules) {
+        this.rules = rules.toArray(new RateLimitRule[0]);
+        this.limiters = new RateLimiter[this.rules.length];
+        for (int i = 0; i < this.rules.length; i++) {
+            limiters[i] = RateLimiterFactory.create(this.rules[i].getConfig());
+        }
+    }
+
+    public boolean allowRequest(RateLimitRequest request) {
+        return tryAcquire(request, 1) == null;
+    }
+
+    /**
+     * Reserve permits in every dimension or in none
+     *
+     * @return null if every rule granted the permits, otherwise the first rule that denied
+     */
+    public RateLimitRule tryAcquire(RateLimitRequest request, int permits) {
+        for (int i = 0; i < rules.length; i++) {
+            String identifier = request.identifierFor(rules[i].getDimension());
+            if (identifier == null) {
+                // Dimension not present on this request
+                continue;
+            }
+            int granted = limiters[i].allowRequests(identifier, permits);
+            if (granted < permits) {
+                if (granted > 0) {
+                    limiters[i].refund(identifier, granted);
+                }
+                rollback(request, i, permits);
+                return rules[i];
+            }
+        }
+        return null;
+    }
+
+    private void rollback(RateLimitRequest request, int deniedAt, int permits) {
+        for (int i = 0; i < deniedAt; i++) {
+            String identifier = request.identifierFor(rules[i].getDimension());
+            if (identifier != null) {
+                limiters[i].refund(identifier, permits);
+            }
+        }
+    }
+
+    /**
+     * Remaining requests for the dimension that has the fewest left
+     */
+    public int getRemainingRequests(RateLimitRequest request) {
+        int remaining = Integer.MAX_VALUE;
+        for (int i = 0; i < rules.length; i++) {
+            String identifier = request.identifierFor(rules[i].getDimension());
+            if (identifier != null) {
+                remaining = Math.min(remaining, limiters[i].getRemainingRequests(identifier));
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Remaining requests for one dimension of the request
+     */
+    public int getRemainingRequests(RateLimitRequest request, RateLimitDimension dimension) {
+        String identifier = request.identifierFor(dimension);
+        int remaining = Integer.MAX_VALUE;
+        for (int i = 0; i < rules.length; i++) {
+            if (identifier != null && rules[i].getDimension() == dimension) {
+                remaining = Math.min(remaining, limiters[i].getRemainingRequests(identifier));
+            }
+        }
+        return remaining;
+    }
+
+    public void shutdown() {
+        for (RateLimiter limiter : limiters) {
+            limiter.shutdown();
+        }
+    }
+}
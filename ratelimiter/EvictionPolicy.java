@@ -0,0 +1,16 @@
+package ratelimiter;
+
+/**
+ * What an {@link IdentifierStateStore} does with a new identifier once it is
+ * already tracking {@code maxTrackedIdentifiers} identifiers.
+ */
+public enum EvictionPolicy {
+    /**
+     * Drop the least recently used identifier (approximated by sampling) to make room.
+     */
+    EVICT_LEAST_RECENTLY_USED,
+    /**
+     * Keep existing identifiers and deny requests from new ones until room frees up.
+     */
+    REJECT_NEW_IDENTIFIERS
+}
@@ -1,106 +1,175 @@
 package ratelimiter;
 
-import java.util.concurrent.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Fixed window counter computed from the time source.
+ *
+ * Windows are aligned to the moment the limiter was created. Each identifier
+ * keeps one AtomicLong packing the index of the window it last counted in
+ * (high 32 bits) with the count in that window (low 32 bits), so a request
+ * that lands in a new window resets the count in the same CAS that takes its
+ * permit and no background task has to reset windows.
+ */
 public class FixedWindowCounterAlgorithm implements RateLimiter {
 
-    private final RateLimiterConfig rateLimiterConfig;
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
     private final int maxRequests;
     private final long windowSizeMs;
-    private final ConcurrentHashMap<String, Semaphore> window;
-    private final ScheduledExecutorService scheduled;
+    private final TimeSource timeSource;
+    private final long originMs;
+    private final IdentifierStateStore<AtomicLong> window;
+
     public FixedWindowCounterAlgorithm(RateLimiterConfig rateLimiterConfig) {
-        this.rateLimiterConfig = rateLimiterConfig;
         this.maxRequests = rateLimiterConfig.getMaxRequests();
         this.windowSizeMs = rateLimiterConfig.getWindowSizeMs();
-        window = new ConcurrentHashMap<>();
-        scheduled = Executors.newSingleThreadScheduledExecutor();
-        windowReset();
-        startCleanupTask();
+        this.timeSource = rateLimiterConfig.getTimeSourceOrDefault();
+        this.originMs = timeSource.millis();
+        // Identifiers idle for 10 windows were always cleaned up, keep that as the default expiry
+        long idleExpiryMs = rateLimiterConfig.getIdleExpiryMs() > 0
+                ? rateLimiterConfig.getIdleExpiryMs() : windowSizeMs * 10;
+        // One AtomicLong holding window index and count
+        window = new IdentifierStateStore<>(idleExpiryMs, rateLimiterConfig.getMaxTrackedIdentifiers(),
+                rateLimiterConfig.getEvictionPolicy(), 16, timeSource);
     }
 
-    private void windowReset() {
-        scheduled.scheduleAtFixedRate(() -> {
-            try {
-                window.forEach((key, semaphore) -> {
-                    semaphore.drainPermits();
-                    semaphore.release(maxRequests);
-                });
-            } catch (Exception e) {
-                System.err.println("Error during window reset: " + e);
-            }
-        }, windowSizeMs, windowSizeMs, TimeUnit.MILLISECONDS);
+    private long windowIndex(long nowMs) {
+        return (nowMs - originMs) / windowSizeMs;
+    }
+
+    private static long pack(long windowIndex, int count) {
+        return (windowIndex << 32) | count;
+    }
+
+    private static long windowOf(long packed) {
+        return packed >>> 32;
+    }
+
+    private static int countOf(long packed) {
+        return (int) (packed & COUNT_MASK);
+    }
+
+    private AtomicLong counterFor(String identifier) {
+        return window.getOrCreate(identifier, a -> new AtomicLong(pack(windowIndex(timeSource.millis()), 0)));
     }
 
     @Override
     public boolean allowRequest(String identifier) {
-        return window.computeIfAbsent(identifier, a-> new Semaphore(maxRequests)).tryAcquire();
+        return allowRequests(identifier, 1) == 1;
     }
 
     @Override
-    public boolean tryAllowRequest(String identifier, long timeoutMs) {
-        try {
-            return window.computeIfAbsent(identifier, a -> new Semaphore(maxRequests))
-                    .tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return false;
+    public int allowRequests(String identifier, int permits) {
+        if (permits <= 0) {
+            return 0;
+        }
+        AtomicLong counter = counterFor(identifier);
+        return counter == null ? 0 : acquire(counter, permits, windowIndex(timeSource.millis()));
+    }
+
+    private int acquire(AtomicLong counter, int permits, long currentWindow) {
+        while (true) {
+            long packed = counter.get();
+            int count = windowOf(packed) == currentWindow ? countOf(packed) : 0;
+            int granted = Math.min(permits, maxRequests - count);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (counter.compareAndSet(packed, pack(currentWindow, count + granted))) {
+                return granted;
+            }
         }
     }
 
-    private void startCleanupTask() {
-        scheduled.scheduleAtFixedRate(() -> {
+    /**
+     * Sleeps until the next window when the current one is used up and the
+     * next one starts within the timeout.
+     */
+    @Override
+    public boolean tryAllowRequest(String identifier, long timeoutMs) {
+        AtomicLong counter = counterFor(identifier);
+        if (counter == null) {
+            return false;
+        }
+        long deadlineMs = timeSource.millis() + timeoutMs;
+        while (true) {
+            long nowMs = timeSource.millis();
+            long currentWindow = windowIndex(nowMs);
+            if (acquire(counter, 1, currentWindow) == 1) {
+                return true;
+            }
+            long nextWindowMs = originMs + (currentWindow + 1) * windowSizeMs;
+            if (nextWindowMs > deadlineMs) {
+                return false;
+            }
             try {
-                window.entrySet().removeIf(entry ->
-                        entry.getValue().availablePermits() == maxRequests
-                );
-            } catch (Exception e) {
-                System.err.println("Error during cleanup: " + e.getMessage());
+                TimeUnit.MILLISECONDS.sleep(Math.max(1, nextWindowMs - nowMs));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
             }
-        }, windowSizeMs * 10, windowSizeMs * 10, TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
     public int getCurrentCount(String identifier) {
-        return window.get(identifier) == null ? 0:
-                maxRequests - window.get(identifier).availablePermits();
+        AtomicLong counter = window.get(identifier);
+        if (counter == null) {
+            return 0;
+        }
+        long packed = counter.get();
+        return windowOf(packed) == windowIndex(timeSource.millis()) ? countOf(packed) : 0;
     }
 
     @Override
     public int getRemainingRequests(String identifier) {
-        return window.get(identifier) == null ? maxRequests: maxRequests - window.get(identifier).availablePermits();
+        return maxRequests - getCurrentCount(identifier);
+    }
+
+    @Override
+    public void refund(String identifier, int permits) {
+        AtomicLong counter = window.get(identifier);
+        if (counter == null || permits <= 0) {
+            return;
+        }
+        long currentWindow = windowIndex(timeSource.millis());
+        while (true) {
+            long packed = counter.get();
+            // Permits from an earlier window are already back
+            if (windowOf(packed) != currentWindow) {
+                return;
+            }
+            int count = countOf(packed);
+            int returned = Math.min(permits, count);
+            if (returned == 0 || counter.compareAndSet(packed, pack(currentWindow, count - returned))) {
+                return;
+            }
+        }
     }
 
     @Override
     public void reset(String identifier) {
-        Semaphore semaphore = window.get(identifier);
-        if (semaphore != null) {
-            semaphore.drainPermits();
-            semaphore.release(maxRequests);
+        AtomicLong counter = window.get(identifier);
+        if (counter != null) {
+            counter.set(pack(windowIndex(timeSource.millis()), 0));
         }
     }
 
     @Override
     public void resetAll() {
-        resetAllWindows();
+        long fresh = pack(windowIndex(timeSource.millis()), 0);
+        window.forEachState(counter -> counter.set(fresh));
     }
 
-    private void resetAllWindows() {
-        window.forEach((identifier, semaphore) -> {
-            semaphore.drainPermits();
-            semaphore.release(maxRequests);
-        });
+    @Override
+    public int getTrackedIdentifierCount() {
+        return window.size();
     }
 
-    public void shutdown() {
-        scheduled.shutdown();
-        try {
-            if (!scheduled.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduled.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            scheduled.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
+    @Override
+    public long getEstimatedMemoryBytes() {
+        return window.getEstimatedMemoryBytes();
     }
 }
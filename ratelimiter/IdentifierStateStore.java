@@ -0,0 +1,267 @@
+package ratelimiter;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Per-identifier state shared by all rate limiting strategies.
+ *
+ * Entries that have not been touched for {@code idleExpiryMs} are dropped, and the
+ * number of tracked identifiers is capped at {@code maxTrackedIdentifiers}. Both
+ * checks run inline when a new identifier is added, so the store needs no thread
+ * of its own. A value of 0 disables either limit.
+ *
+ * The cap is best effort: concurrent inserts can overshoot it by the number of
+ * racing threads. A request that raced with the eviction of its own entry is
+ * counted against the evicted state, which is harmless because the entry was idle.
+ */
+public class IdentifierStateStore<S> {
+
+    /** Sampled entries considered when picking an LRU victim. */
+    private static final int EVICTION_SAMPLE_SIZE = 16;
+
+    /** Approximate heap cost of a map node plus an {@link Entry}, compressed oops. */
+    private static final long ENTRY_OVERHEAD_BYTES = 32 + 24;
+    /** Approximate fixed heap cost of a Latin-1 identifier string. */
+    private static final long IDENTIFIER_OVERHEAD_BYTES = 40;
+
+    private final ConcurrentHashMap<String, Entry<S>> entries;
+    private final long idleExpiryMs;
+    private final int maxTrackedIdentifiers;
+    private final EvictionPolicy evictionPolicy;
+    private final long bytesPerState;
+    private final TimeSource timeSource;
+
+    private final AtomicLong lastSweepAt;
+    private final LongAdder identifierChars = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    private static final class Entry<S> {
+        private final S state;
+        private volatile long lastAccessMs;
+
+        private Entry(S state, long now) {
+            this.state = state;
+            this.lastAccessMs = now;
+        }
+    }
+
+    public IdentifierStateStore(long idleExpiryMs, int maxTrackedIdentifiers,
+                                EvictionPolicy evictionPolicy, long bytesPerState) {
+        this(idleExpiryMs, maxTrackedIdentifiers, evictionPolicy, bytesPerState, SystemTimeSource.INSTANCE);
+    }
+
+    public IdentifierStateStore(long idleExpiryMs, int maxTrackedIdentifiers,
+                                EvictionPolicy evictionPolicy, long bytesPerState, TimeSource timeSource) {
+        this.entries = new ConcurrentHashMap<>();
+        this.idleExpiryMs = idleExpiryMs;
+        this.maxTrackedIdentifiers = maxTrackedIdentifiers;
+        this.evictionPolicy = evictionPolicy != null ? evictionPolicy : EvictionPolicy.EVICT_LEAST_RECENTLY_USED;
+        this.bytesPerState = bytesPerState;
+        this.timeSource = timeSource;
+        this.lastSweepAt = new AtomicLong(timeSource.millis());
+    }
+
+    public static <S> IdentifierStateStore<S> fromConfig(RateLimiterConfig config, long bytesPerState) {
+        return new IdentifierStateStore<>(config.getIdleExpiryMs(), config.getMaxTrackedIdentifiers(),
+                config.getEvictionPolicy(), bytesPerState, config.getTimeSourceOrDefault());
+    }
+
+    /**
+     * Returns the state for the identifier, creating it if needed, and marks it as used.
+     *
+     * @return the state, or null if the store is full and the policy rejects new identifiers
+     */
+    public S getOrCreate(String identifier, Function<String, S> factory) {
+        long now = timeSource.millis();
+        Entry<S> entry = entries.get(identifier);
+        if (entry == null) {
+            entry = insert(identifier, factory, now);
+            if (entry == null) {
+                return null;
+            }
+        } else if (entry.lastAccessMs != now) {
+            // Skip the volatile write when several requests land in the same millisecond
+            entry.lastAccessMs = now;
+        }
+        return entry.state;
+    }
+
+    private Entry<S> insert(String identifier, Function<String, S> factory, long now) {
+        sweepIfDue(now);
+
+        if (maxTrackedIdentifiers > 0 && entries.size() >= maxTrackedIdentifiers) {
+            if (evictionPolicy == EvictionPolicy.REJECT_NEW_IDENTIFIERS) {
+                rejections.increment();
+                return null;
+            }
+            evictLeastRecentlyUsed();
+        }
+
+        boolean[] created = new boolean[1];
+        Entry<S> entry = entries.computeIfAbsent(identifier, k -> {
+            created[0] = true;
+            return new Entry<>(factory.apply(k), now);
+        });
+        if (created[0]) {
+            identifierChars.add(identifier.length());
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the state without creating it or refreshing its last access time.
+     */
+    public S get(String identifier) {
+        Entry<S> entry = entries.get(identifier);
+        return entry != null ? entry.state : null;
+    }
+
+    public void forEach(BiConsumer<String, S> action) {
+        entries.forEach((identifier, entry) -> action.accept(identifier, entry.state));
+    }
+
+    public void forEachState(Consumer<S> action) {
+        entries.values().forEach(entry -> action.accept(entry.state));
+    }
+
+    public void remove(String identifier) {
+        if (entries.remove(identifier) != null) {
+            identifierChars.add(-identifier.length());
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        identifierChars.reset();
+    }
+
+    /**
+     * Drops every identifier idle for longer than the configured expiry.
+     *
+     * @return number of identifiers removed
+     */
+    public int evictIdle() {
+        return idleExpiryMs > 0 ? removeIdleSince(timeSource.millis() - idleExpiryMs) : 0;
+    }
+
+    private void sweepIfDue(long now) {
+        if (idleExpiryMs <= 0) {
+            return;
+        }
+        long lastSweep = lastSweepAt.get();
+        // Only one thread sweeps per expiry period
+        if (now - lastSweep >= idleExpiryMs && lastSweepAt.compareAndSet(lastSweep, now)) {
+            removeIdleSince(now - idleExpiryMs);
+        }
+    }
+
+    private int removeIdleSince(long cutoff) {
+        int removed = 0;
+        Iterator<Map.Entry<String, Entry<S>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry<S>> e = it.next();
+            if (e.getValue().lastAccessMs < cutoff && entries.remove(e.getKey(), e.getValue())) {
+                identifierChars.add(-e.getKey().length());
+                removed++;
+            }
+        }
+        expirations.add(removed);
+        return removed;
+    }
+
+    /**
+     * Evicts the oldest of a sample of entries taken from a random part of the
+     * table. Sampling from the start of the iteration every time would keep
+     * judging the same slots, evicting fresh identifiers that hash there while
+     * older ones elsewhere stay.
+     */
+    private void evictLeastRecentlyUsed() {
+        Map.Entry<String, Entry<S>> victim = oldestOf(randomRegion());
+        if (victim == null) {
+            // The region held no entries, so fall back to the start of the table
+            victim = oldestOf(entries.entrySet().spliterator());
+        }
+        if (victim != null && entries.remove(victim.getKey(), victim.getValue())) {
+            identifierChars.add(-victim.getKey().length());
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Halves the table's spliterator at random until about a sample's worth of
+     * entries is left, which picks a random region in O(log n).
+     */
+    private Spliterator<Map.Entry<String, Entry<S>>> randomRegion() {
+        Spliterator<Map.Entry<String, Entry<S>>> region = entries.entrySet().spliterator();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (region.estimateSize() > EVICTION_SAMPLE_SIZE) {
+            Spliterator<Map.Entry<String, Entry<S>>> prefix = region.trySplit();
+            if (prefix == null) {
+                break;
+            }
+            if (random.nextBoolean()) {
+                region = prefix;
+            }
+        }
+        return region;
+    }
+
+    private Map.Entry<String, Entry<S>> oldestOf(Spliterator<Map.Entry<String, Entry<S>>> region) {
+        OldestEntry<S> oldest = new OldestEntry<>();
+        int sampled = 0;
+        while (sampled < EVICTION_SAMPLE_SIZE && region.tryAdvance(oldest)) {
+            sampled++;
+        }
+        return oldest.entry;
+    }
+
+    /**
+     * Keeps the least recently used of the entries it is handed.
+     */
+    private static final class OldestEntry<S> implements Consumer<Map.Entry<String, Entry<S>>> {
+        private Map.Entry<String, Entry<S>> entry;
+
+        @Override
+        public void accept(Map.Entry<String, Entry<S>> candidate) {
+            if (entry == null || candidate.getValue().lastAccessMs < entry.getValue().lastAccessMs) {
+                entry = candidate;
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Rough heap footprint of the tracked identifiers and their state.
+     */
+    public long getEstimatedMemoryBytes() {
+        long count = entries.size();
+        return count * (ENTRY_OVERHEAD_BYTES + IDENTIFIER_OVERHEAD_BYTES + bytesPerState)
+                + identifierChars.sum();
+    }
+
+    public long getExpiredCount() {
+        return expirations.sum();
+    }
+
+    public long getEvictedCount() {
+        return evictions.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejections.sum();
+    }
+}
@@ -1,103 +1,150 @@
 package ratelimiter;
 
-import java.util.concurrent.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Leaky bucket computed arithmetically instead of with a queue per identifier.
+ *
+ * Each identifier keeps one timestamp: the moment its bucket will have fully
+ * drained at the leak rate. The queue level is the time left until then divided
+ * by the leak interval, so nothing has to poll the buckets and no object is
+ * allocated per request.
+ *
+ * Two modes share that state:
+ * <ul>
+ *   <li>Meter: {@link #allowRequest} admits the request if it fits in the bucket.</li>
+ *   <li>Shaper: {@link #reserveDelayNanos} admits the request and returns how long
+ *   the caller should wait before processing it, so output leaves at the leak rate.</li>
+ * </ul>
+ */
 public class LeakyBucketAlgorithm implements RateLimiter {
 
-    private final int leakRate;
+    public static final long BUCKET_FULL = VirtualScheduling.FULL;
+
     private final int queueCapacity;
-    private final ConcurrentHashMap<String, BlockingQueue<Long>> buckets;
-    private final ScheduledExecutorService scheduler;
+    private final long leakIntervalNanos;
+    private final long capacityNanos;
+    private final TimeSource timeSource;
+    private final IdentifierStateStore<AtomicLong> buckets;
 
     public LeakyBucketAlgorithm(RateLimiterConfig config) {
-        this.leakRate = config.getMaxRequests();
         this.queueCapacity = config.getBucketCapacity();
-        this.buckets = new ConcurrentHashMap<>();
-        this.scheduler = Executors.newSingleThreadScheduledExecutor();
-        startLeaking();
+        this.leakIntervalNanos = TimeUnit.SECONDS.toNanos(1) / config.getMaxRequests();
+        this.capacityNanos = leakIntervalNanos * queueCapacity;
+        this.timeSource = config.getTimeSourceOrDefault();
+        // One AtomicLong holding the drain time
+        this.buckets = IdentifierStateStore.fromConfig(config, 16);
     }
 
-    private void startLeaking() {
-        long periodMs = 1000 / leakRate;
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                leak();
-            } catch (Exception e) {
-                System.err.println("Leak error: " + e.getMessage());
-            }
-        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    private AtomicLong bucketFor(String identifier) {
+        return buckets.getOrCreate(identifier, k -> new AtomicLong(timeSource.nanoTime()));
     }
 
-    private void leak() {
-        buckets.forEach((identifier, queue) -> {
-            queue.poll();
-        });
+    @Override
+    public boolean allowRequest(String identifier) {
+        return reserveDelayNanos(identifier) != BUCKET_FULL;
     }
 
+    /**
+     * Adds as many of the requests as fit in the bucket with one CAS.
+     */
     @Override
-    public boolean allowRequest(String identifier) {
-        BlockingQueue<Long> bucket = buckets.computeIfAbsent(
-                identifier,
-                k -> new LinkedBlockingQueue<>(queueCapacity)
-        );
+    public int allowRequests(String identifier, int permits) {
+        if (permits <= 0) {
+            return 0;
+        }
+        AtomicLong drainedAt = bucketFor(identifier);
+        if (drainedAt == null) {
+            return 0;
+        }
+        return VirtualScheduling.acquire(drainedAt, permits, leakIntervalNanos, capacityNanos, timeSource.nanoTime());
+    }
 
-        long timestamp = System.currentTimeMillis();
-        return bucket.offer(timestamp);
+    /**
+     * Adds the request to the bucket and returns how long the caller should wait
+     * before processing it so requests leave the bucket at the leak rate.
+     *
+     * @return delay in nanoseconds (0 if the bucket was empty), or {@link #BUCKET_FULL}
+     */
+    public long reserveDelayNanos(String identifier) {
+        AtomicLong drainedAt = bucketFor(identifier);
+        if (drainedAt == null) {
+            return BUCKET_FULL;
+        }
+        return VirtualScheduling.reserve(drainedAt, leakIntervalNanos, capacityNanos, timeSource.nanoTime());
     }
 
+    /**
+     * Waits up to the timeout for room in the bucket. The slot is reserved
+     * immediately, so the wait never races with other callers.
+     */
     @Override
     public boolean tryAllowRequest(String identifier, long timeoutMs) {
-        BlockingQueue<Long> bucket = buckets.computeIfAbsent(
-                identifier,
-                k -> new LinkedBlockingQueue<>(queueCapacity)
-        );
-
-        try {
-            long timestamp = System.currentTimeMillis();
-            return bucket.offer(timestamp, timeoutMs, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        AtomicLong drainedAt = bucketFor(identifier);
+        if (drainedAt == null) {
+            return false;
+        }
+
+        long waitNanos = VirtualScheduling.reserveWithin(drainedAt, leakIntervalNanos, capacityNanos,
+                TimeUnit.MILLISECONDS.toNanos(timeoutMs), timeSource.nanoTime());
+        if (waitNanos == BUCKET_FULL) {
             return false;
         }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                VirtualScheduling.refund(drainedAt, 1, leakIntervalNanos, timeSource.nanoTime());
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int getCurrentCount(String identifier) {
-        BlockingQueue<Long> bucket = buckets.get(identifier);
-        return bucket != null ? bucket.size() : 0;
+        AtomicLong drainedAt = buckets.get(identifier);
+        return drainedAt != null
+                ? VirtualScheduling.backlog(drainedAt.get(), timeSource.nanoTime(), leakIntervalNanos, queueCapacity)
+                : 0;
     }
 
     @Override
     public int getRemainingRequests(String identifier) {
-        BlockingQueue<Long> bucket = buckets.get(identifier);
-        if (bucket == null) {
-            return queueCapacity;
+        return queueCapacity - getCurrentCount(identifier);
+    }
+
+    @Override
+    public void refund(String identifier, int permits) {
+        AtomicLong drainedAt = buckets.get(identifier);
+        if (drainedAt != null && permits > 0) {
+            VirtualScheduling.refund(drainedAt, permits, leakIntervalNanos, timeSource.nanoTime());
         }
-        return queueCapacity - bucket.size();
     }
 
     @Override
     public void reset(String identifier) {
-        BlockingQueue<Long> bucket = buckets.get(identifier);
-        if (bucket != null) {
-            bucket.clear();
+        AtomicLong drainedAt = buckets.get(identifier);
+        if (drainedAt != null) {
+            drainedAt.set(timeSource.nanoTime());
         }
     }
 
     @Override
     public void resetAll() {
-        buckets.values().forEach(BlockingQueue::clear);
+        long now = timeSource.nanoTime();
+        buckets.forEachState(drainedAt -> drainedAt.set(now));
     }
 
-    public void shutdown() {
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
+    @Override
+    public int getTrackedIdentifierCount() {
+        return buckets.size();
+    }
+
+    @Override
+    public long getEstimatedMemoryBytes() {
+        return buckets.getEstimatedMemoryBytes();
     }
-}
\ No newline at end of file
+}
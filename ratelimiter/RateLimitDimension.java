@@ -0,0 +1,9 @@
+package ratelimiter;
+
+public enum RateLimitDimension {
+    USER,
+    API_KEY,
+    ENDPOINT,
+    USER_ENDPOINT,
+    GLOBAL
+}
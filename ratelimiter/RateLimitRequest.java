@@ -0,0 +1,29 @@
+package ratelimiter;
+
+/**
+ * One incoming request as seen by {@link CompositeRateLimiter}. The identifier
+ * for every dimension is built once here, not once per rule.
+ */
+public class RateLimitRequest {
+
+    private static final String GLOBAL_IDENTIFIER = "global";
+
+    private final String[] identifiers;
+
+    public RateLimitRequest(String userId, String apiKey, String endpoint) {
+        identifiers = new String[RateLimitDimension.values().length];
+        identifiers[RateLimitDimension.USER.ordinal()] = userId == null ? null : "user:" + userId;
+        identifiers[RateLimitDimension.API_KEY.ordinal()] = apiKey == null ? null : "key:" + apiKey;
+        identifiers[RateLimitDimension.ENDPOINT.ordinal()] = endpoint == null ? null : "endpoint:" + endpoint;
+        identifiers[RateLimitDimension.USER_ENDPOINT.ordinal()] =
+                userId == null || endpoint == null ? null : "user:" + userId + "|endpoint:" + endpoint;
+        identifiers[RateLimitDimension.GLOBAL.ordinal()] = GLOBAL_IDENTIFIER;
+    }
+
+    /**
+     * @return identifier for the dimension, or null if the request does not carry it
+     */
+    public String identifierFor(RateLimitDimension dimension) {
+        return identifiers[dimension.ordinal()];
+    }
+}
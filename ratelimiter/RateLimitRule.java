@@ -0,0 +1,11 @@
+package ratelimiter;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@AllArgsConstructor
+@Data
+public class RateLimitRule {
+    private final RateLimitDimension dimension;
+    private final RateLimiterConfig config;
+}
@@ -1,5 +1,7 @@
 package ratelimiter;
 
+import java.util.Map;
+
 public interface RateLimiter {
     /**
      * Check if request is allowed for the given identifier
@@ -18,7 +20,40 @@ public interface RateLimiter {
      * @return true if request allowed within timeout, false otherwise
      */
     boolean tryAllowRequest(String identifier, long timeoutMs) throws InterruptedException;
+
+    /**
+     * Grant as many of the requested permits as the limit allows, in one atomic
+     * update of the identifier's state
+     *
+     * @param identifier User ID, API key, or IP address
+     * @param permits Number of permits wanted
+     * @return Number of permits granted, between 0 and permits
+     */
+    int allowRequests(String identifier, int permits);
+
+    /**
+     * Grant permits for a whole batch, updating each identifier once
+     *
+     * @param permitsByIdentifier Permits wanted per identifier
+     * @return Permits granted per identifier, including partial grants
+     */
+    default BulkGrantResult allowRequestsBulk(Map<String, Integer> permitsByIdentifier) {
+        BulkGrantResult result = new BulkGrantResult(permitsByIdentifier.size());
+        permitsByIdentifier.forEach((identifier, permits) ->
+                result.record(identifier, permits, allowRequests(identifier, permits)));
+        return result;
+    }
     
+    /**
+     * Give back permits granted earlier, e.g. when a later check in the same
+     * request denied it. Best effort: if the window or lease has moved on since
+     * the grant, the permits are returned to the current one.
+     *
+     * @param identifier User ID, API key, or IP address
+     * @param permits Number of permits to return
+     */
+    void refund(String identifier, int permits);
+
     /**
      * Get current request count for identifier
      * Thread-safe read operation
@@ -49,4 +84,20 @@ public interface RateLimiter {
      * Use with caution in production!
      */
     void resetAll();
+
+    /**
+     * Number of identifiers currently holding rate limit state
+     */
+    int getTrackedIdentifierCount();
+
+    /**
+     * Approximate heap used by per-identifier state, in bytes
+     */
+    long getEstimatedMemoryBytes();
+
+    /**
+     * Stop background work owned by the limiter, if any
+     */
+    default void shutdown() {
+    }
 }
\ No newline at end of file
@@ -15,6 +15,18 @@ public class RateLimiterConfig {
     // Token Bucket specific
     private final int bucketCapacity;
     private final double refillRate;
+
+    // Identifier tracking (0 disables the limit)
+    private final long idleExpiryMs;
+    private final int maxTrackedIdentifiers;
+    private final EvictionPolicy evictionPolicy;
+
+    // Defaults to System.nanoTime() when not set
+    private final TimeSource timeSource;
     // Getters and builder...
+
+    public TimeSource getTimeSourceOrDefault() {
+        return timeSource != null ? timeSource : SystemTimeSource.INSTANCE;
+    }
 }
 
@@ -1,10 +1,30 @@
 package ratelimiter;
 
+import ratelimiter.distributed.DistributedRateLimiter;
+import ratelimiter.distributed.DistributedRateLimiterConfig;
+import ratelimiter.distributed.InProcessTokenCoordinator;
+import ratelimiter.distributed.TcpTokenCoordinator;
+import ratelimiter.distributed.TcpTokenCoordinatorServer;
+import ratelimiter.distributed.TokenCoordinator;
+import ratelimiter.adaptive.AdaptiveAlgorithm;
+import ratelimiter.adaptive.AdaptiveConcurrencyLimiter;
+import ratelimiter.adaptive.AdaptiveLimiterConfig;
+import ratelimiter.metrics.HeavyHitter;
+import ratelimiter.metrics.MeteredRateLimiter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class RateLimiterDriver {
 
+    private static int checks;
+    private static int failedChecks;
+
     public static void main(String[] args) throws InterruptedException {
         System.out.println("=".repeat(80));
         System.out.println("RATE LIMITER TESTING SUITE");
@@ -21,18 +41,48 @@ public class RateLimiterDriver {
         
         // Concurrent test
         concurrentTest();
+
+        // Identifier eviction test
+        testIdentifierEviction();
+
+        // Batch permits test
+        testBatchPermits();
+
+        // Distributed leasing test
+        testDistributedLeasing();
+
+        // Hierarchical limits test
+        testHierarchicalLimits();
+
+        // Decision metrics test
+        testDecisionMetrics();
+
+        // Adaptive concurrency test
+        testAdaptiveConcurrency();
+
+        System.out.printf("\n=== %d/%d checks passed ===\n", checks - failedChecks, checks);
+    }
+
+    private static void check(boolean condition, String description) {
+        checks++;
+        if (!condition) {
+            failedChecks++;
+        }
+        System.out.println((condition ? "  PASS " : "  FAIL ") + description);
     }
 
     // ==================== TOKEN BUCKET TEST ====================
     
-    public static void testTokenBucket() throws InterruptedException {
+    public static void testTokenBucket() {
         System.out.println("\n" + "=".repeat(80));
         System.out.println("TEST 1: TOKEN BUCKET ALGORITHM");
         System.out.println("=".repeat(80));
         
+        ManualTimeSource clock = new ManualTimeSource();
         RateLimiterConfig config = RateLimiterConfig.builder()
             .bucketCapacity(5)
             .refillRate(2.0)  // 2 tokens per second
+            .timeSource(clock)
             .build();
         
         TokenBucketAlgorithm limiter = new TokenBucketAlgorithm(config);
@@ -57,7 +107,7 @@ public class RateLimiterDriver {
         
         // Wait for refill
         System.out.println("\nPhase 3: Wait 1 second for refill...");
-        Thread.sleep(1100);
+        clock.advanceMillis(1100);
         System.out.printf("  After refill - Remaining: %d\n", 
             limiter.getRemainingRequests("user1"));
         
@@ -75,14 +125,16 @@ public class RateLimiterDriver {
 
     // ==================== FIXED WINDOW TEST ====================
     
-    public static void testFixedWindow() throws InterruptedException {
+    public static void testFixedWindow() {
         System.out.println("\n" + "=".repeat(80));
         System.out.println("TEST 2: FIXED WINDOW COUNTER ALGORITHM");
         System.out.println("=".repeat(80));
         
+        ManualTimeSource clock = new ManualTimeSource();
         RateLimiterConfig config = RateLimiterConfig.builder()
             .maxRequests(10)
             .windowSizeMs(5000)  // 5 second window
+            .timeSource(clock)
             .build();
         
         FixedWindowCounterAlgorithm limiter = new FixedWindowCounterAlgorithm(config);
@@ -109,7 +161,7 @@ public class RateLimiterDriver {
         
         // Wait for window reset
         System.out.println("\nPhase 3: Wait for window reset (5 seconds)...");
-        Thread.sleep(5100);
+        clock.advanceMillis(5100);
         
         System.out.printf("  After reset - Used: %d/%d, Remaining: %d\n",
             limiter.getCurrentCount("user1"), 10,
@@ -128,14 +180,16 @@ public class RateLimiterDriver {
 
     // ==================== SLIDING WINDOW TEST ====================
     
-    public static void testSlidingWindow() throws InterruptedException {
+    public static void testSlidingWindow() {
         System.out.println("\n" + "=".repeat(80));
         System.out.println("TEST 3: SLIDING WINDOW COUNTER ALGORITHM");
         System.out.println("=".repeat(80));
         
+        ManualTimeSource clock = new ManualTimeSource();
         RateLimiterConfig config = RateLimiterConfig.builder()
             .maxRequests(10)
             .windowSizeMs(10000)  // 10 second window
+            .timeSource(clock)
             .build();
         
         SlidingWindowCounterAlgorithm limiter = new SlidingWindowCounterAlgorithm(config);
@@ -151,7 +205,7 @@ public class RateLimiterDriver {
         
         // Wait 5 seconds (middle of window)
         System.out.println("\nPhase 2: Wait 5 seconds (middle of window)...");
-        Thread.sleep(5000);
+        clock.advanceMillis(5000);
         
         // Try 2 more
         System.out.println("\nPhase 3: Try 2 more requests at t=5s");
@@ -174,14 +228,16 @@ public class RateLimiterDriver {
 
     // ==================== LEAKY BUCKET TEST ====================
     
-    public static void testLeakyBucket() throws InterruptedException {
+    public static void testLeakyBucket() {
         System.out.println("\n" + "=".repeat(80));
         System.out.println("TEST 4: LEAKY BUCKET ALGORITHM");
         System.out.println("=".repeat(80));
         
+        ManualTimeSource clock = new ManualTimeSource();
         RateLimiterConfig config = RateLimiterConfig.builder()
             .maxRequests(2)  // Leak 2 per second
             .bucketCapacity(5)
+            .timeSource(clock)
             .build();
         
         LeakyBucketAlgorithm limiter = new LeakyBucketAlgorithm(config);
@@ -206,7 +262,7 @@ public class RateLimiterDriver {
         
         // Wait for leak
         System.out.println("\nPhase 3: Wait 1 second for leak (2 items leaked)...");
-        Thread.sleep(1100);
+        clock.advanceMillis(1100);
         System.out.printf("  After leak - Queue size: %d/%d\n",
             limiter.getCurrentCount("user1"), 5);
         
@@ -218,6 +274,14 @@ public class RateLimiterDriver {
                 i, allowed ? "ALLOWED" : "DENIED",
                 limiter.getCurrentCount("user1"), 5);
         }
+
+        // Shaping mode: every request is admitted with the delay that keeps output at 2/sec
+        System.out.println("\nPhase 5: Shaping mode on a fresh identifier (3 requests)");
+        for (int i = 1; i <= 3; i++) {
+            long delayNanos = limiter.reserveDelayNanos("user2");
+            System.out.printf("  Request %d: wait %dms before processing\n",
+                i, TimeUnit.NANOSECONDS.toMillis(delayNanos));
+        }
         
         limiter.shutdown();
         System.out.println("\n✓ Leaky Bucket test completed");
@@ -332,11 +396,346 @@ public class RateLimiterDriver {
         System.out.println("\n✓ Concurrent test completed");
     }
 
+    // ==================== IDENTIFIER EVICTION TEST ====================
+
+    public static void testIdentifierEviction() {
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println("TEST 7: IDENTIFIER EVICTION (10000 IPs, cap 1000, 500ms idle expiry)");
+        System.out.println("=".repeat(80));
+
+        ManualTimeSource clock = new ManualTimeSource();
+        RateLimiterConfig config = RateLimiterConfig.builder()
+            .maxRequests(10)
+            .windowSizeMs(1000)
+            .maxTrackedIdentifiers(1000)
+            .idleExpiryMs(500)
+            .timeSource(clock)
+            .build();
+
+        SlidingWindowCounterAlgorithm limiter = new SlidingWindowCounterAlgorithm(config);
+
+        System.out.println("Phase 1: One request from each of 10000 IPs");
+        for (int i = 0; i < 10000; i++) {
+            limiter.allowRequest("10.0." + (i / 256) + "." + (i % 256));
+        }
+        System.out.printf("  Tracked: %d (cap 1000), Estimated memory: %d bytes\n",
+            limiter.getTrackedIdentifierCount(), limiter.getEstimatedMemoryBytes());
+
+        System.out.println("\nPhase 2: Wait for idle expiry, then one new IP");
+        clock.advanceMillis(600);
+        limiter.allowRequest("192.168.0.1");
+        System.out.printf("  Tracked: %d (expected 1)\n", limiter.getTrackedIdentifierCount());
+
+        System.out.println("\nPhase 3: Cap 8, every IP but 10.1.0.3 used again, then a new IP");
+        IdentifierStateStore<Object> small = new IdentifierStateStore<>(0, 8,
+            EvictionPolicy.EVICT_LEAST_RECENTLY_USED, 0, clock);
+        for (int i = 0; i < 8; i++) {
+            clock.advanceMillis(1);
+            small.getOrCreate("10.1.0." + i, ip -> new Object());
+        }
+        for (int i = 0; i < 8; i++) {
+            if (i != 3) {
+                clock.advanceMillis(1);
+                small.getOrCreate("10.1.0." + i, ip -> new Object());
+            }
+        }
+        small.getOrCreate("10.1.0.100", ip -> new Object());
+        System.out.printf("  10.1.0.3 evicted: %b, original IPs kept: %d of 8 (expected true, 7)\n",
+            small.get("10.1.0.3") == null, countTracked(small, "10.1.", 8));
+
+        System.out.println("\nPhase 4: Cap 1000 full of old IPs, then 500 new IPs 1ms apart");
+        IdentifierStateStore<Object> large = new IdentifierStateStore<>(0, 1000,
+            EvictionPolicy.EVICT_LEAST_RECENTLY_USED, 0, clock);
+        for (int i = 0; i < 1000; i++) {
+            clock.advanceMillis(1);
+            large.getOrCreate("10.2." + (i / 256) + "." + (i % 256), ip -> new Object());
+        }
+        for (int i = 0; i < 500; i++) {
+            clock.advanceMillis(1);
+            large.getOrCreate("10.3." + (i / 256) + "." + (i % 256), ip -> new Object());
+        }
+        // Sampling only approximates LRU, but the victims should come from the old IPs
+        System.out.printf("  New IPs kept: %d of 500, old IPs kept: %d of 1000 (expected ~500, ~500)\n",
+            countTracked(large, "10.3.", 500), countTracked(large, "10.2.", 1000));
+
+        System.out.println("\n✓ Identifier eviction test completed");
+    }
+
+    private static int countTracked(IdentifierStateStore<Object> store, String prefix, int count) {
+        int tracked = 0;
+        for (int i = 0; i < count; i++) {
+            if (store.get(prefix + (i / 256) + "." + (i % 256)) != null) {
+                tracked++;
+            }
+        }
+        return tracked;
+    }
+
+    // ==================== BATCH PERMITS TEST ====================
+
+    public static void testBatchPermits() {
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println("TEST 8: BATCH PERMITS (limit 100 per 10 seconds)");
+        System.out.println("=".repeat(80));
+
+        RateLimiterConfig config = RateLimiterConfig.builder()
+            .maxRequests(100)
+            .windowSizeMs(10000)
+            .build();
+
+        SlidingWindowCounterAlgorithm limiter = new SlidingWindowCounterAlgorithm(config);
+
+        System.out.println("Phase 1: Ask for 60 permits, then 60 more");
+        System.out.printf("  First batch granted: %d/60\n", limiter.allowRequests("ingest", 60));
+        System.out.printf("  Second batch granted: %d/60 (partial)\n", limiter.allowRequests("ingest", 60));
+
+        System.out.println("\nPhase 2: Bulk request for three tenants");
+        Map<String, Integer> batch = new LinkedHashMap<>();
+        batch.put("ingest", 10);
+        batch.put("tenantA", 40);
+        batch.put("tenantB", 150);
+        BulkGrantResult result = limiter.allowRequestsBulk(batch);
+        batch.keySet().forEach(identifier -> System.out.printf("  %s: %d/%d granted\n",
+            identifier, result.getGranted(identifier), result.getRequested(identifier)));
+        System.out.printf("  Partially granted: %s, Denied: %s\n",
+            result.getPartiallyGrantedIdentifiers(), result.getDeniedIdentifiers());
+
+        System.out.println("\n✓ Batch permits test completed");
+    }
+
+    // ==================== DISTRIBUTED LEASING TEST ====================
+
+    public static void testDistributedLeasing() throws InterruptedException {
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println("TEST 9: DISTRIBUTED LEASING (3 nodes, global limit 100 per 10 seconds)");
+        System.out.println("=".repeat(80));
+
+        FixedWindowCounterAlgorithm global = new FixedWindowCounterAlgorithm(RateLimiterConfig.builder()
+            .maxRequests(100)
+            .windowSizeMs(10000)
+            .build());
+
+        DistributedRateLimiterConfig nodeConfig = DistributedRateLimiterConfig.builder()
+            .leaseSize(10)
+            .leaseTtlMs(10000)
+            .emptyLeaseBackoffMs(50)
+            .build();
+
+        try (TcpTokenCoordinatorServer server =
+                 new TcpTokenCoordinatorServer(new InProcessTokenCoordinator(global), 0)) {
+            List<DistributedRateLimiter> nodes = new ArrayList<>();
+            List<TokenCoordinator> clients = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                TcpTokenCoordinator client = new TcpTokenCoordinator(server.getPort());
+                clients.add(client);
+                nodes.add(new DistributedRateLimiter(client, nodeConfig));
+            }
+
+            System.out.println("Phase 1: Each node receives 100 requests for the same API key");
+            int total = 0;
+            for (int round = 0; round < 100; round++) {
+                for (DistributedRateLimiter node : nodes) {
+                    if (node.allowRequest("api-key-1")) {
+                        total++;
+                    }
+                }
+                Thread.sleep(1);
+            }
+            System.out.printf("  Allowed across cluster: %d/300 (global limit 100)\n", total);
+
+            nodes.forEach(DistributedRateLimiter::shutdown);
+            clients.forEach(TokenCoordinator::close);
+        } catch (IOException e) {
+            System.out.println("  Could not start coordinator: " + e.getMessage());
+        }
+        global.shutdown();
+
+        System.out.println("\nPhase 2: Coordinator taking 100ms per lease, 8 threads calling tryAllowRequest (500ms)");
+        FixedWindowCounterAlgorithm slowGlobal = new FixedWindowCounterAlgorithm(RateLimiterConfig.builder()
+            .maxRequests(30)
+            .windowSizeMs(10000)
+            .build());
+        AtomicInteger leasesInFlight = new AtomicInteger();
+        AtomicInteger maxLeasesInFlight = new AtomicInteger();
+        TokenCoordinator slowCoordinator = (identifier, requestedTokens) -> {
+            maxLeasesInFlight.accumulateAndGet(leasesInFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                leasesInFlight.decrementAndGet();
+            }
+            return slowGlobal.allowRequests(identifier, requestedTokens);
+        };
+        DistributedRateLimiter slowNode = new DistributedRateLimiter(slowCoordinator, nodeConfig);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        AtomicInteger slowAllowed = new AtomicInteger();
+        CountDownLatch callersDone = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            callers.submit(() -> {
+                try {
+                    for (int i = 0; i < 10; i++) {
+                        if (slowNode.tryAllowRequest("api-key-2", 500)) {
+                            slowAllowed.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    callersDone.countDown();
+                }
+            });
+        }
+        callersDone.await();
+        callers.shutdown();
+        System.out.printf("  Allowed: %d/80 (global limit 30), most leases in flight at once: %d (expected 1)\n",
+            slowAllowed.get(), maxLeasesInFlight.get());
+
+        System.out.println("\nPhase 3: Empty lease with a refresh in flight, tryAllowRequest with a 1ms timeout");
+        for (int i = 0; i < 10; i++) {
+            slowNode.allowRequest("api-key-3");
+        }
+        long waitStart = System.nanoTime();
+        boolean allowedInTime = slowNode.tryAllowRequest("api-key-3", 1);
+        System.out.printf("  Returned %b after %dms (lease round trip 100ms)\n",
+            allowedInTime, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waitStart));
+        slowNode.shutdown();
+        slowGlobal.shutdown();
+
+        System.out.println("\n✓ Distributed leasing test completed");
+    }
+
+    // ==================== HIERARCHICAL LIMITS TEST ====================
+
+    public static void testHierarchicalLimits() {
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println("TEST 10: HIERARCHICAL LIMITS (5 per user, 8 global, per 10 seconds)");
+        System.out.println("=".repeat(80));
+
+        CompositeRateLimiter limiter = new CompositeRateLimiter(List.of(
+            new RateLimitRule(RateLimitDimension.USER, RateLimiterConfig.builder()
+                .strategy(RateLimitStrategy.SLIDING_WINDOW_COUNTER)
+                .maxRequests(5)
+                .windowSizeMs(10000)
+                .build()),
+            new RateLimitRule(RateLimitDimension.GLOBAL, RateLimiterConfig.builder()
+                .strategy(RateLimitStrategy.SLIDING_WINDOW_COUNTER)
+                .maxRequests(8)
+                .windowSizeMs(10000)
+                .build())
+        ));
+
+        System.out.println("Phase 1: alice sends 6 requests, bob sends 6 requests");
+        for (String user : new String[]{"alice", "bob"}) {
+            RateLimitRequest request = new RateLimitRequest(user, null, "/orders");
+            int allowed = 0;
+            RateLimitRule deniedBy = null;
+            for (int i = 0; i < 6; i++) {
+                RateLimitRule rule = limiter.tryAcquire(request, 1);
+                if (rule == null) {
+                    allowed++;
+                } else {
+                    deniedBy = rule;
+                }
+            }
+            System.out.printf("  %s: %d/6 allowed, last denied by %s, user quota left: %d\n",
+                user, allowed, deniedBy != null ? deniedBy.getDimension() : "none",
+                limiter.getRemainingRequests(request, RateLimitDimension.USER));
+        }
+        System.out.println("  (bob's denied requests did not consume his per-user quota)");
+
+        limiter.shutdown();
+        System.out.println("\n✓ Hierarchical limits test completed");
+    }
+
+    // ==================== DECISION METRICS TEST ====================
+
+    public static void testDecisionMetrics() throws InterruptedException {
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println("TEST 12: DECISION METRICS (10 per 10 seconds, 50 clients, 2 abusive)");
+        System.out.println("=".repeat(80));
+
+        MeteredRateLimiter limiter = RateLimiterFactory.createMetered(RateLimiterConfig.builder()
+            .strategy(RateLimitStrategy.SLIDING_WINDOW_COUNTER)
+            .maxRequests(10)
+            .windowSizeMs(10000)
+            .build());
+
+        System.out.println("Phase 1: 5 requests from each client, 200 from client-7 and client-42");
+        for (int i = 0; i < 50; i++) {
+            int requests = (i == 7 || i == 42) ? 200 : 5;
+            for (int r = 0; r < requests; r++) {
+                limiter.allowRequest("client-" + i);
+            }
+        }
+
+        System.out.println("  " + limiter.getMetrics());
+        System.out.println("\nPhase 2: Top throttled clients");
+        for (HeavyHitter hitter : limiter.getMetrics().getTopThrottled(3)) {
+            System.out.printf("  %s: ~%d denied\n", hitter.getIdentifier(), hitter.getEstimatedCount());
+        }
+
+        limiter.shutdown();
+        System.out.println("\n✓ Decision metrics test completed");
+    }
+
+    // ==================== ADAPTIVE CONCURRENCY TEST ====================
+
+    public static void testAdaptiveConcurrency() {
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println("TEST 13: ADAPTIVE CONCURRENCY (backend handles 20, then recovers to 60)");
+        System.out.println("=".repeat(80));
+
+        for (AdaptiveAlgorithm algorithm : AdaptiveAlgorithm.values()) {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(AdaptiveLimiterConfig.builder()
+                .algorithm(algorithm)
+                .initialLimit(10)
+                .maxLimit(200)
+                // 20% over the 10ms no-load latency counts as a drop for AIMD
+                .timeoutMs(12)
+                .build());
+
+            System.out.printf("%s: 200 requests offered per round\n", algorithm);
+            // Limits seen over the last 50 rounds of each phase, once the limiter has had time to settle
+            int[] lowest = {Integer.MAX_VALUE, Integer.MAX_VALUE};
+            int[] highest = {0, 0};
+            for (int round = 1; round <= 300; round++) {
+                int capacity = round <= 150 ? 20 : 60;
+                int admitted = limiter.allowRequests("backend", 200);
+                // Requests beyond the backend's capacity queue up and slow everyone down
+                long latencyNanos = TimeUnit.MILLISECONDS.toNanos(10) * Math.max(capacity, admitted) / capacity;
+                for (int i = 0; i < admitted; i++) {
+                    limiter.onRequestComplete("backend", latencyNanos);
+                }
+                if (round % 50 == 0) {
+                    System.out.printf("  Round %d (capacity %d): limit %d, latency %dms\n",
+                        round, capacity, limiter.getLimit("backend"),
+                        TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+                }
+                if ((round - 1) % 150 >= 100) {
+                    int phase = round <= 150 ? 0 : 1;
+                    lowest[phase] = Math.min(lowest[phase], limiter.getLimit("backend"));
+                    highest[phase] = Math.max(highest[phase], limiter.getLimit("backend"));
+                }
+            }
+            int[] capacities = {20, 60};
+            for (int phase = 0; phase < 2; phase++) {
+                int capacity = capacities[phase];
+                check(lowest[phase] >= capacity * 0.8 && highest[phase] <= capacity * 1.25,
+                    String.format("%s settles within 80-125%% of capacity %d (limit %d-%d)",
+                        algorithm, capacity, lowest[phase], highest[phase]));
+            }
+        }
+
+        System.out.println("\n✓ Adaptive concurrency test completed");
+    }
+
     // ==================== COMPARISON TEST ====================
     
     public static void comparisonTest() throws InterruptedException {
         System.out.println("\n" + "=".repeat(80));
-        System.out.println("TEST 7: ALGORITHM COMPARISON");
+        System.out.println("TEST 11: ALGORITHM COMPARISON");
         System.out.println("=".repeat(80));
         
         System.out.println("\nScenario: 150 requests in first second, 50 in second second");
@@ -0,0 +1,38 @@
+package ratelimiter;
+
+import ratelimiter.metrics.MeteredRateLimiter;
+
+public class RateLimiterFactory {
+
+    private RateLimiterFactory() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the strategy is missing or has no implementation yet
+     */
+    public static RateLimiter create(RateLimiterConfig config) {
+        if (config.getStrategy() == null) {
+            throw new IllegalArgumentException("Rate limit strategy is required");
+        }
+        switch (config.getStrategy()) {
+            case FIXED_WINDOW:
+                return new FixedWindowCounterAlgorithm(config);
+            case SLIDING_WINDOW_COUNTER:
+                return new SlidingWindowCounterAlgorithm(config);
+            case TOKEN_BUCKET:
+                return new TokenBucketAlgorithm(config);
+            case LEAKY_BUCKET:
+                return new LeakyBucketAlgorithm(config);
+            case SLIDING_WINDOW_LOG:
+            default:
+                throw new IllegalArgumentException("No implementation for " + config.getStrategy());
+        }
+    }
+
+    /**
+     * Same as {@link #create} with decision metrics recorded under the strategy name.
+     */
+    public static MeteredRateLimiter createMetered(RateLimiterConfig config) {
+        return new MeteredRateLimiter(String.valueOf(config.getStrategy()), create(config));
+    }
+}
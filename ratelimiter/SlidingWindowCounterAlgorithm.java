@@ -1,185 +1,174 @@
 package ratelimiter;
 
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class SlidingWindowCounterAlgorithm implements RateLimiter {
 
     private final int maxRequests;
     private final long windowSizeMs;
-    private final ConcurrentHashMap<String, WindowData> windows;
+    private final TimeSource timeSource;
+    private final IdentifierStateStore<AtomicReference<WindowSnapshot>> windows;
 
     public SlidingWindowCounterAlgorithm(RateLimiterConfig rateLimiterConfig) {
         this.maxRequests = rateLimiterConfig.getMaxRequests();
         this.windowSizeMs = rateLimiterConfig.getWindowSizeMs();
-        windows = new ConcurrentHashMap<>();
+        this.timeSource = rateLimiterConfig.getTimeSourceOrDefault();
+        // AtomicReference plus one snapshot
+        windows = IdentifierStateStore.fromConfig(rateLimiterConfig, 16 + 32);
     }
 
-    private static class WindowData {
-        private final AtomicInteger currentWindowCount;
-        private final AtomicInteger previousWindowCount;
-        private volatile long currentWindowStart;
-        private final ReentrantLock lock;
-
-        public WindowData() {
-            this.currentWindowCount = new AtomicInteger(0);
-            this.previousWindowCount = new AtomicInteger(0);
-            this.currentWindowStart = System.currentTimeMillis();
-            this.lock = new ReentrantLock();
+    /**
+     * Immutable view of one identifier's window. A new snapshot is swapped in
+     * with a CAS on every grant, so readers never see a half-slid window.
+     */
+    private static final class WindowSnapshot {
+        private final long currentWindowStart;
+        private final int currentWindowCount;
+        private final int previousWindowCount;
+
+        private WindowSnapshot(long currentWindowStart, int currentWindowCount, int previousWindowCount) {
+            this.currentWindowStart = currentWindowStart;
+            this.currentWindowCount = currentWindowCount;
+            this.previousWindowCount = previousWindowCount;
         }
     }
 
     @Override
     public boolean allowRequest(String identifier) {
-        long now = System.currentTimeMillis();
-        WindowData data = windows.computeIfAbsent(identifier, k -> new WindowData());
-
-        data.lock.lock();
-        try {
-            slideWindowIfNeeded(data, now);
-
-            long timeInCurrentWindow = now - data.currentWindowStart;
-            double overlapPercentage = 1.0 - ((double) timeInCurrentWindow / windowSizeMs);
-            overlapPercentage = Math.max(0, Math.min(1, overlapPercentage));
+        return allowRequests(identifier, 1) == 1;
+    }
 
-            int current = data.currentWindowCount.get();
-            int previous = data.previousWindowCount.get();
-            double weightedCount = current + (previous * overlapPercentage);
+    @Override
+    public int allowRequests(String identifier, int permits) {
+        if (permits <= 0) {
+            return 0;
+        }
+        AtomicReference<WindowSnapshot> ref = windows.getOrCreate(identifier, k -> new AtomicReference<>(newWindow()));
+        if (ref == null) {
+            return 0;
+        }
 
-            if (weightedCount < maxRequests) {
-                data.currentWindowCount.incrementAndGet();
-                return true;
+        while (true) {
+            long now = timeSource.millis();
+            WindowSnapshot snapshot = ref.get();
+            WindowSnapshot slid = slide(snapshot, now);
+
+            // A single request fits while the weighted count is below the limit, hence ceil
+            int granted = (int) Math.min(permits, Math.ceil(maxRequests - weightedCount(slid, now)));
+            if (granted <= 0) {
+                // Publish the slid window so later calls start from it
+                if (slid != snapshot) {
+                    ref.compareAndSet(snapshot, slid);
+                }
+                return 0;
             }
 
-            return false;
-        } finally {
-            data.lock.unlock();
-        }
-    }
-
-    private void slideWindowIfNeeded(WindowData data, long now) {
-        long timeSinceStart = now - data.currentWindowStart;
-        if (timeSinceStart >= windowSizeMs) {
-            data.previousWindowCount.set(data.currentWindowCount.get());
-            data.currentWindowCount.set(0);
-            data.currentWindowStart = now;
+            WindowSnapshot next = new WindowSnapshot(
+                    slid.currentWindowStart, slid.currentWindowCount + granted, slid.previousWindowCount);
+            if (ref.compareAndSet(snapshot, next)) {
+                return granted;
+            }
         }
     }
 
+    /**
+     * The decision never blocks, so the timeout is not needed.
+     */
     @Override
-    public boolean tryAllowRequest(String identifier, long timeoutMs) throws InterruptedException {
-        long now = System.currentTimeMillis();
-        WindowData data = windows.computeIfAbsent(identifier, k -> new WindowData());
+    public boolean tryAllowRequest(String identifier, long timeoutMs) {
+        return allowRequest(identifier);
+    }
 
-        if (!data.lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
-            return false;
+    /**
+     * Rolls the snapshot forward to the window containing {@code now}. Windows stay
+     * aligned to the first window start, and the previous count is dropped once
+     * more than one full window has elapsed.
+     */
+    private WindowSnapshot slide(WindowSnapshot snapshot, long now) {
+        long timeSinceStart = now - snapshot.currentWindowStart;
+        if (timeSinceStart < windowSizeMs) {
+            return snapshot;
         }
-        try {
-            slideWindowIfNeeded(data, now);
-
-            long timeInCurrentWindow = now - data.currentWindowStart;
-            double overlapPercentage = 1.0 - ((double) timeInCurrentWindow / windowSizeMs);
-            overlapPercentage = Math.max(0, Math.min(1, overlapPercentage));
-
-            int current = data.currentWindowCount.get();
-            int previous = data.previousWindowCount.get();
-            double weightedCount = current + (previous * overlapPercentage);
+        long windowsElapsed = timeSinceStart / windowSizeMs;
+        int previous = windowsElapsed == 1 ? snapshot.currentWindowCount : 0;
+        return new WindowSnapshot(snapshot.currentWindowStart + windowsElapsed * windowSizeMs, 0, previous);
+    }
 
-            if (weightedCount < maxRequests) {
-                data.currentWindowCount.incrementAndGet();
-                return true;
-            }
+    private double weightedCount(WindowSnapshot snapshot, long now) {
+        long timeInCurrentWindow = now - snapshot.currentWindowStart;
+        double overlapPercentage = 1.0 - ((double) timeInCurrentWindow / windowSizeMs);
+        overlapPercentage = Math.max(0, Math.min(1, overlapPercentage));
+        return snapshot.currentWindowCount + (snapshot.previousWindowCount * overlapPercentage);
+    }
 
-            return false;
-        } finally {
-            data.lock.unlock();
-        }
+    private WindowSnapshot newWindow() {
+        return new WindowSnapshot(timeSource.millis(), 0, 0);
     }
 
     @Override
     public int getCurrentCount(String identifier) {
-        WindowData data = windows.get(identifier);
-
-        if (data == null) {
+        AtomicReference<WindowSnapshot> ref = windows.get(identifier);
+        if (ref == null) {
             return 0;
         }
 
-        data.lock.lock();
-        try {
-            long now = System.currentTimeMillis();
-            slideWindowIfNeeded(data, now);
-            long timeInCurrentWindow = now - data.currentWindowStart;
-            double overlapPercentage = 1.0 - ((double) timeInCurrentWindow / windowSizeMs);
-            overlapPercentage = Math.max(0, Math.min(1, overlapPercentage));
-            int current = data.currentWindowCount.get();
-            int previous = data.previousWindowCount.get();
-            double weightedCount = current + (previous * overlapPercentage);
-            return (int) Math.ceil(weightedCount);
-
-        } finally {
-            data.lock.unlock();
-        }
+        long now = timeSource.millis();
+        return (int) Math.ceil(weightedCount(slide(ref.get(), now), now));
     }
 
     @Override
     public int getRemainingRequests(String identifier) {
-        WindowData data = windows.get(identifier);
-        if (data == null) {
+        AtomicReference<WindowSnapshot> ref = windows.get(identifier);
+        if (ref == null) {
             return maxRequests;
         }
 
-        data.lock.lock();
-        try {
-            long now = System.currentTimeMillis();
-            slideWindowIfNeeded(data, now);
-            long timeInCurrentWindow = now - data.currentWindowStart;
-            double overlapPercentage = 1.0 - ((double) timeInCurrentWindow / windowSizeMs);
-            overlapPercentage = Math.max(0, Math.min(1, overlapPercentage));
-
-            int current = data.currentWindowCount.get();
-            int previous = data.previousWindowCount.get();
-            double weightedCount = current + (previous * overlapPercentage);
-            int remaining = (int) Math.floor(maxRequests - weightedCount);
-            return Math.max(0, remaining);
-
-        } finally {
-            data.lock.unlock();
+        long now = timeSource.millis();
+        int remaining = (int) Math.floor(maxRequests - weightedCount(slide(ref.get(), now), now));
+        return Math.max(0, remaining);
+    }
+
+    @Override
+    public void refund(String identifier, int permits) {
+        AtomicReference<WindowSnapshot> ref = windows.get(identifier);
+        if (ref == null || permits <= 0) {
+            return;
+        }
+        while (true) {
+            WindowSnapshot snapshot = ref.get();
+            int returned = Math.min(permits, snapshot.currentWindowCount);
+            if (returned == 0) {
+                return;
+            }
+            WindowSnapshot next = new WindowSnapshot(snapshot.currentWindowStart,
+                    snapshot.currentWindowCount - returned, snapshot.previousWindowCount);
+            if (ref.compareAndSet(snapshot, next)) {
+                return;
+            }
         }
     }
 
     @Override
     public void reset(String identifier) {
-        WindowData data = windows.get(identifier);
-
-        if (data != null) {
-            data.lock.lock();
-            try {
-                data.currentWindowCount.set(0);
-                data.previousWindowCount.set(0);
-
-                data.currentWindowStart = System.currentTimeMillis();
-
-            } finally {
-                data.lock.unlock();
-            }
+        AtomicReference<WindowSnapshot> ref = windows.get(identifier);
+        if (ref != null) {
+            ref.set(newWindow());
         }
     }
 
     @Override
     public void resetAll() {
-        long now = System.currentTimeMillis();
+        WindowSnapshot fresh = newWindow();
+        windows.forEachState(ref -> ref.set(fresh));
+    }
 
-        windows.values().forEach(data -> {
-            data.lock.lock();
-            try {
-                data.currentWindowCount.set(0);
-                data.previousWindowCount.set(0);
-                data.currentWindowStart = now;
+    @Override
+    public int getTrackedIdentifierCount() {
+        return windows.size();
+    }
 
-            } finally {
-                data.lock.unlock();
-            }
-        });
+    @Override
+    public long getEstimatedMemoryBytes() {
+        return windows.getEstimatedMemoryBytes();
     }
 }
@@ -0,0 +1,16 @@
+package ratelimiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monotonic time used by the rate limiters. Values only make sense as
+ * differences; they do not follow the wall clock.
+ */
+public interface TimeSource {
+
+    long nanoTime();
+
+    default long millis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanoTime());
+    }
+}
@@ -1,76 +1,107 @@
 package ratelimiter;
 
-import java.util.concurrent.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Token bucket refilled lazily from the time source.
+ *
+ * Each identifier keeps the moment its bucket will be full again; tokens
+ * missing from the bucket are the time left until then divided by the refill
+ * interval. This is the same virtual scheduling the leaky bucket uses, so no
+ * background task refills buckets and a request is a single CAS.
+ */
 public class TokenBucketAlgorithm implements RateLimiter {
 
     private final int bucketCapacity;
-    private final double refillRate;
-    private final ConcurrentHashMap<String, Semaphore> buckets;
-    private final ScheduledExecutorService scheduler;
+    private final long refillIntervalNanos;
+    private final long capacityNanos;
+    private final TimeSource timeSource;
+    private final IdentifierStateStore<AtomicLong> buckets;
 
     public TokenBucketAlgorithm(RateLimiterConfig config) {
         this.bucketCapacity = config.getBucketCapacity();
-        this.refillRate = config.getRefillRate();
-        this.buckets = new ConcurrentHashMap<>();
-        this.scheduler = Executors.newSingleThreadScheduledExecutor();
-        startRefillTask();
+        this.refillIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / config.getRefillRate());
+        this.capacityNanos = refillIntervalNanos * bucketCapacity;
+        this.timeSource = config.getTimeSourceOrDefault();
+        // One AtomicLong holding the refill time
+        this.buckets = IdentifierStateStore.fromConfig(config, 16);
     }
 
-    private void startRefillTask() {
-        scheduler.scheduleAtFixedRate(() -> {
-            for (var tokens : buckets.values()) {
-                if (tokens.availablePermits() < bucketCapacity) {
-                    tokens.release();
-                }
-                tokens.release();
-            }
-        }, 0, (long) refillRate, TimeUnit.MILLISECONDS);
+    private AtomicLong bucketFor(String identifier) {
+        return buckets.getOrCreate(identifier, k -> new AtomicLong(timeSource.nanoTime()));
     }
 
     @Override
     public boolean allowRequest(String identifier) {
-        Semaphore b = buckets.computeIfAbsent(
-                identifier,
-                k -> new Semaphore(bucketCapacity)
-        );
-        return b.tryAcquire();
+        return allowRequests(identifier, 1) == 1;
+    }
+
+    @Override
+    public int allowRequests(String identifier, int permits) {
+        if (permits <= 0) {
+            return 0;
+        }
+        AtomicLong fullAt = bucketFor(identifier);
+        if (fullAt == null) {
+            return 0;
+        }
+        return VirtualScheduling.acquire(fullAt, permits, refillIntervalNanos, capacityNanos, timeSource.nanoTime());
     }
 
+    /**
+     * Waits up to the timeout for the next token. The token is reserved
+     * immediately, so the wait never races with other callers.
+     */
     @Override
     public boolean tryAllowRequest(String identifier, long timeoutMs) {
-        Semaphore bucket = buckets.computeIfAbsent(
-                identifier,
-                k -> new Semaphore(bucketCapacity)
-        );
-
-        try {
-            return bucket.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        AtomicLong fullAt = bucketFor(identifier);
+        if (fullAt == null) {
             return false;
         }
+
+        long waitNanos = VirtualScheduling.reserveWithin(fullAt, refillIntervalNanos, capacityNanos,
+                TimeUnit.MILLISECONDS.toNanos(timeoutMs), timeSource.nanoTime());
+        if (waitNanos == VirtualScheduling.FULL) {
+            return false;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                VirtualScheduling.refund(fullAt, 1, refillIntervalNanos, timeSource.nanoTime());
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int getCurrentCount(String identifier) {
-        Semaphore bucket = buckets.get(identifier);
-        if (bucket == null) return 0;
-        return bucketCapacity - bucket.availablePermits();
+        AtomicLong fullAt = buckets.get(identifier);
+        if (fullAt == null) return 0;
+        return VirtualScheduling.backlog(fullAt.get(), timeSource.nanoTime(), refillIntervalNanos, bucketCapacity);
     }
 
     @Override
     public int getRemainingRequests(String identifier) {
-        Semaphore bucket = buckets.get(identifier);
-        return bucket != null ? bucket.availablePermits() : bucketCapacity;
+        return bucketCapacity - getCurrentCount(identifier);
+    }
+
+    @Override
+    public void refund(String identifier, int permits) {
+        AtomicLong fullAt = buckets.get(identifier);
+        if (fullAt != null && permits > 0) {
+            VirtualScheduling.refund(fullAt, permits, refillIntervalNanos, timeSource.nanoTime());
+        }
     }
 
     @Override
     public void reset(String identifier) {
-        Semaphore bucket = buckets.get(identifier);
-        if (bucket != null) {
-            bucket.drainPermits();
-            bucket.release(bucketCapacity);
+        AtomicLong fullAt = buckets.get(identifier);
+        if (fullAt != null) {
+            fullAt.set(timeSource.nanoTime());
         }
     }
 
@@ -78,4 +109,14 @@ public class TokenBucketAlgorithm implements RateLimiter {
     public void resetAll() {
         buckets.clear();
     }
+
+    @Override
+    public int getTrackedIdentifierCount() {
+        return buckets.size();
+    }
+
+    @Override
+    public long getEstimatedMemoryBytes() {
+        return buckets.getEstimatedMemoryBytes();
+    }
 }
@@ -0,0 +1,108 @@
+package ratelimiter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Virtual scheduling form of the generic cell rate algorithm, shared by the
+ * token bucket and the leaky bucket.
+ *
+ * The whole bucket is one timestamp: the moment the backlog admitted so far
+ * will have been worked off at one unit per {@code intervalNanos}. Admitting
+ * n units pushes it n intervals forward, and the bucket is full when it lies
+ * more than {@code capacityNanos} ahead of now. Every operation is a single CAS
+ * on that timestamp.
+ */
+final class VirtualScheduling {
+
+    static final long FULL = -1;
+
+    private VirtualScheduling() {
+    }
+
+    /**
+     * Admits as many of the permits as fit.
+     *
+     * @return permits admitted, between 0 and permits
+     */
+    static int acquire(AtomicLong schedule, int permits, long intervalNanos, long capacityNanos, long now) {
+        while (true) {
+            long current = schedule.get();
+            long start = Math.max(current, now);
+            long room = (capacityNanos - (start - now)) / intervalNanos;
+            int granted = (int) Math.min(permits, room);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (schedule.compareAndSet(current, start + granted * intervalNanos)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Admits one unit if it fits.
+     *
+     * @return nanos until the backlog ahead of this unit is worked off, or {@link #FULL}
+     */
+    static long reserve(AtomicLong schedule, long intervalNanos, long capacityNanos, long now) {
+        while (true) {
+            long current = schedule.get();
+            long start = Math.max(current, now);
+            if (start + intervalNanos - now > capacityNanos) {
+                return FULL;
+            }
+            if (schedule.compareAndSet(current, start + intervalNanos)) {
+                return start - now;
+            }
+        }
+    }
+
+    /**
+     * Admits one unit if room for it opens up within maxWaitNanos.
+     *
+     * @return nanos the caller must wait before the unit counts as admitted (0 or less
+     * means immediately), or {@link #FULL}
+     */
+    static long reserveWithin(AtomicLong schedule, long intervalNanos, long capacityNanos,
+                              long maxWaitNanos, long now) {
+        while (true) {
+            long current = schedule.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long waitNanos = next - now - capacityNanos;
+            if (waitNanos > maxWaitNanos) {
+                return FULL;
+            }
+            if (schedule.compareAndSet(current, next)) {
+                return waitNanos;
+            }
+        }
+    }
+
+    /**
+     * Moves the schedule back by the permits, never behind now.
+     */
+    static void refund(AtomicLong schedule, int permits, long intervalNanos, long now) {
+        long returnedNanos = permits * intervalNanos;
+        while (true) {
+            long current = schedule.get();
+            if (current - now <= 0) {
+                return;
+            }
+            if (schedule.compareAndSet(current, Math.max(now, current - returnedNanos))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Units admitted but not yet worked off, rounded up and capped at capacity.
+     */
+    static int backlog(long schedule, long now, long intervalNanos, int capacity) {
+        long pendingNanos = schedule - now;
+        if (pendingNanos <= 0) {
+            return 0;
+        }
+        long pending = (pendingNanos + intervalNanos - 1) / intervalNanos;
+        return (int) Math.min(pending, capacity);
+    }
+}
@@ -0,0 +1,12 @@
+package ratelimiter.adaptive;
+
+public enum AdaptiveAlgorithm {
+    /**
+     * Additive increase while requests succeed, multiplicative decrease on a drop.
+     */
+    AIMD,
+    /**
+     * Scale the limit by the ratio of the long-term to the short-term latency.
+     */
+    GRADIENT
+}
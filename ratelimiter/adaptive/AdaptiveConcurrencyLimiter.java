@@ -0,0 +1,166 @@
+package ratelimiter.adaptive;
+
+import ratelimiter.IdentifierStateStore;
+import ratelimiter.RateLimiter;
+import ratelimiter.SystemTimeSource;
+import ratelimiter.TimeSource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits how many requests per identifier (typically a backend) are in flight
+ * at once, with the limit adjusted by a {@link LimitAlgorithm} from the latency
+ * of completed requests instead of a fixed maxRequests.
+ *
+ * Every permit granted by {@link #allowRequest} or {@link #allowRequests} must be
+ * released through exactly one of {@link #onRequestComplete},
+ * {@link #onRequestDropped} or {@link #refund}. Requests over the limit are
+ * rejected immediately rather than queued, which is what sheds load when the
+ * backend slows down.
+ */
+public class AdaptiveConcurrencyLimiter implements RateLimiter {
+
+    /** Counter, algorithm state and object headers. */
+    private static final long LIMIT_BYTES = 96;
+
+    private final AdaptiveLimiterConfig config;
+    private final IdentifierStateStore<Concurrency> limits;
+
+    private static final class Concurrency {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LimitAlgorithm algorithm;
+
+        private Concurrency(LimitAlgorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+    }
+
+    public AdaptiveConcurrencyLimiter(AdaptiveLimiterConfig config) {
+        this(config, SystemTimeSource.INSTANCE);
+    }
+
+    public AdaptiveConcurrencyLimiter(AdaptiveLimiterConfig config, TimeSource timeSource) {
+        this.config = config;
+        this.limits = new IdentifierStateStore<>(config.getIdleExpiryMs(), config.getMaxTrackedIdentifiers(),
+                config.getEvictionPolicy(), LIMIT_BYTES, timeSource);
+    }
+
+    private LimitAlgorithm newAlgorithm() {
+        if (config.getAlgorithm() == AdaptiveAlgorithm.GRADIENT) {
+            return GradientLimit.fromConfig(config);
+        }
+        return AimdLimit.fromConfig(config);
+    }
+
+    private Concurrency concurrencyFor(String identifier) {
+        return limits.getOrCreate(identifier, k -> new Concurrency(newAlgorithm()));
+    }
+
+    @Override
+    public boolean allowRequest(String identifier) {
+        return allowRequests(identifier, 1) == 1;
+    }
+
+    @Override
+    public int allowRequests(String identifier, int permits) {
+        if (permits <= 0) {
+            return 0;
+        }
+        Concurrency concurrency = concurrencyFor(identifier);
+        if (concurrency == null) {
+            return 0;
+        }
+        while (true) {
+            int current = concurrency.inFlight.get();
+            int granted = Math.min(permits, concurrency.algorithm.getLimit() - current);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (concurrency.inFlight.compareAndSet(current, current + granted)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Waiting for a slot would only add queueing delay, so this never waits.
+     */
+    @Override
+    public boolean tryAllowRequest(String identifier, long timeoutMs) {
+        return allowRequest(identifier);
+    }
+
+    /**
+     * Releases the request's permit and feeds its round-trip time to the limit algorithm.
+     */
+    public void onRequestComplete(String identifier, long latencyNanos) {
+        release(identifier, latencyNanos, false);
+    }
+
+    /**
+     * Releases the request's permit and reports it as timed out or rejected by the backend.
+     */
+    public void onRequestDropped(String identifier) {
+        release(identifier, 0, true);
+    }
+
+    private void release(String identifier, long latencyNanos, boolean dropped) {
+        Concurrency concurrency = limits.get(identifier);
+        if (concurrency == null) {
+            return;
+        }
+        int inFlight = concurrency.inFlight.getAndUpdate(current -> Math.max(0, current - 1));
+        concurrency.algorithm.onSample(latencyNanos, inFlight, dropped);
+    }
+
+    public int getLimit(String identifier) {
+        Concurrency concurrency = limits.get(identifier);
+        return concurrency != null ? concurrency.algorithm.getLimit() : config.initialLimitOrDefault();
+    }
+
+    @Override
+    public int getCurrentCount(String identifier) {
+        Concurrency concurrency = limits.get(identifier);
+        return concurrency != null ? concurrency.inFlight.get() : 0;
+    }
+
+    @Override
+    public int getRemainingRequests(String identifier) {
+        return Math.max(0, getLimit(identifier) - getCurrentCount(identifier));
+    }
+
+    /**
+     * Releases permits without reporting a sample, e.g. when the request was
+     * never sent because a later check denied it.
+     */
+    @Override
+    public void refund(String identifier, int permits) {
+        Concurrency concurrency = limits.get(identifier);
+        if (concurrency != null && permits > 0) {
+            concurrency.inFlight.getAndUpdate(current -> Math.max(0, current - permits));
+        }
+    }
+
+    @Override
+    public void reset(String identifier) {
+        Concurrency concurrency = limits.get(identifier);
+        if (concurrency != null) {
+            concurrency.algorithm.reset();
+        }
+    }
+
+    @Override
+    public void resetAll() {
+        limits.forEachState(concurrency -> concurrency.algorithm.reset());
+    }
+
+    @Override
+    public int getTrackedIdentifierCount() {
+        return limits.size();
+    }
+
+    @Override
+    public long getEstimatedMemoryBytes() {
+        return limits.getEstimatedMemoryBytes();
+    }
+}
@@ -0,0 +1,45 @@
+package ratelimiter.adaptive;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import ratelimiter.EvictionPolicy;
+
+@AllArgsConstructor
+@Data
+@Builder
+public class AdaptiveLimiterConfig {
+    private final AdaptiveAlgorithm algorithm;
+
+    // Concurrency bounds (0 means 20 initial, 1 minimum, 1000 maximum)
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+
+    // AIMD specific: multiply the limit by this on a drop (0 means 0.9)
+    private final double backoffRatio;
+    // AIMD specific: a request slower than this counts as a drop (0 disables)
+    private final long timeoutMs;
+
+    // Gradient specific: latency increase tolerated before shrinking (0 means 1.1)
+    private final double rttTolerance;
+    // Gradient specific: weight of each new limit estimate (0 means 0.2)
+    private final double smoothing;
+
+    // Identifier tracking (0 disables the limit)
+    private final long idleExpiryMs;
+    private final int maxTrackedIdentifiers;
+    private final EvictionPolicy evictionPolicy;
+
+    int initialLimitOrDefault() {
+        return initialLimit > 0 ? initialLimit : 20;
+    }
+
+    int minLimitOrDefault() {
+        return minLimit > 0 ? minLimit : 1;
+    }
+
+    int maxLimitOrDefault() {
+        return maxLimit > 0 ? maxLimit : 1000;
+    }
+}
@@ -0,0 +1,75 @@
+package ratelimiter.adaptive;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Additive increase, multiplicative decrease, applied once per window of
+ * samples the size of the current limit (roughly one round trip, as in TCP).
+ * A window with a drop or a sample slower than the timeout shrinks the limit
+ * by the backoff ratio; otherwise it grows by one if the limiter was at least
+ * half used, so an idle backend does not earn an unbounded limit. Requests
+ * sent together tend to fail together, and judging them as one window stops a
+ * single burst from collapsing the limit.
+ */
+public class AimdLimit implements LimitAlgorithm {
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long timeoutNanos;
+    private final AtomicInteger limit;
+    private final AtomicInteger samplesInWindow = new AtomicInteger();
+    private final AtomicBoolean droppedInWindow = new AtomicBoolean();
+    private final AtomicBoolean usedInWindow = new AtomicBoolean();
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long timeoutNanos) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.timeoutNanos = timeoutNanos;
+        this.limit = new AtomicInteger(initialLimit);
+    }
+
+    static AimdLimit fromConfig(AdaptiveLimiterConfig config) {
+        return new AimdLimit(config.initialLimitOrDefault(), config.minLimitOrDefault(), config.maxLimitOrDefault(),
+                config.getBackoffRatio() > 0 ? config.getBackoffRatio() : 0.9,
+                TimeUnit.MILLISECONDS.toNanos(config.getTimeoutMs()));
+    }
+
+    @Override
+    public int getLimit() {
+        return limit.get();
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped || (timeoutNanos > 0 && rttNanos > timeoutNanos)) {
+            droppedInWindow.set(true);
+        } else if (inFlight * 2 >= limit.get()) {
+            usedInWindow.set(true);
+        }
+
+        int samples = samplesInWindow.incrementAndGet();
+        if (samples < limit.get() || !samplesInWindow.compareAndSet(samples, 0)) {
+            return;
+        }
+        if (droppedInWindow.getAndSet(false)) {
+            usedInWindow.set(false);
+            limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+        } else if (usedInWindow.getAndSet(false)) {
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    @Override
+    public void reset() {
+        limit.set(initialLimit);
+        samplesInWindow.set(0);
+        droppedInWindow.set(false);
+        usedInWindow.set(false);
+    }
+}
@@ -0,0 +1,112 @@
+package ratelimiter.adaptive;
+
+/**
+ * Gradient limit: compares the average latency of the last window of samples
+ * (one limit's worth, roughly a round trip) with the no-load latency. While
+ * they agree the limit grows by a queue allowance of sqrt(limit); once the
+ * window's latency rises above the no-load latency times the tolerance, the
+ * limit is scaled down by their ratio with no allowance, so it settles where
+ * latency reaches the tolerance rather than above it. Queueing shows up in latency before the
+ * backend fails, so this sheds load before drops start. Updating once per
+ * window keeps the limit from chasing samples that were all admitted under
+ * the same, already outdated limit.
+ *
+ * The no-load latency follows new minimums immediately and drifts up slowly
+ * otherwise, so a backend that got permanently slower is eventually accepted
+ * as the new baseline.
+ *
+ * Samples update several fields together, so they are applied under the
+ * instance lock; {@link #getLimit()} is a volatile read.
+ */
+public class GradientLimit implements LimitAlgorithm {
+
+    /** Windows over which the no-load latency drifts towards a slower backend. */
+    private static final double BASELINE_WINDOWS = 1000;
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double noLoadRttNanos;
+
+    private int samplesInWindow;
+    private long rttSumNanos;
+    private int rttSamples;
+    private int maxInFlight;
+    private boolean droppedInWindow;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance, double smoothing) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        reset();
+    }
+
+    static GradientLimit fromConfig(AdaptiveLimiterConfig config) {
+        return new GradientLimit(config.initialLimitOrDefault(), config.minLimitOrDefault(),
+                config.maxLimitOrDefault(),
+                config.getRttTolerance() > 0 ? config.getRttTolerance() : 1.1,
+                config.getSmoothing() > 0 ? config.getSmoothing() : 0.2);
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped) {
+            droppedInWindow = true;
+        } else {
+            rttSumNanos += rttNanos;
+            rttSamples++;
+        }
+        maxInFlight = Math.max(maxInFlight, inFlight);
+        if (++samplesInWindow < limit) {
+            return;
+        }
+
+        double target;
+        if (droppedInWindow || rttSamples == 0) {
+            target = estimatedLimit * 0.5;
+        } else {
+            double windowRttNanos = (double) rttSumNanos / rttSamples;
+            noLoadRttNanos = noLoadRttNanos == 0 ? windowRttNanos : Math.min(windowRttNanos,
+                    noLoadRttNanos + (windowRttNanos - noLoadRttNanos) / BASELINE_WINDOWS);
+            double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * noLoadRttNanos / windowRttNanos));
+            // Queue allowance only while latency is within tolerance, else the limit settles above capacity
+            target = gradient < 1.0 ? estimatedLimit * gradient : estimatedLimit + Math.sqrt(estimatedLimit);
+            // Only grow when the limit is actually being used
+            if (target > estimatedLimit && maxInFlight < estimatedLimit / 2) {
+                target = estimatedLimit;
+            }
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                estimatedLimit * (1 - smoothing) + target * smoothing));
+        limit = (int) estimatedLimit;
+        startWindow();
+    }
+
+    private void startWindow() {
+        samplesInWindow = 0;
+        rttSumNanos = 0;
+        rttSamples = 0;
+        maxInFlight = 0;
+        droppedInWindow = false;
+    }
+
+    @Override
+    public synchronized void reset() {
+        estimatedLimit = initialLimit;
+        limit = initialLimit;
+        noLoadRttNanos = 0;
+        startWindow();
+    }
+}
@@ -0,0 +1,18 @@
+package ratelimiter.adaptive;
+
+/**
+ * Computes a concurrency limit from the outcome of completed requests.
+ */
+public interface LimitAlgorithm {
+
+    int getLimit();
+
+    /**
+     * @param rttNanos round-trip time of the completed request
+     * @param inFlight requests in flight when it completed, including itself
+     * @param dropped  true if the request timed out or was rejected by the backend
+     */
+    void onSample(long rttNanos, int inFlight, boolean dropped);
+
+    void reset();
+}
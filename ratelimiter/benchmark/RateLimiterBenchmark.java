@@ -0,0 +1,152 @@
+package ratelimiter.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ratelimiter.RateLimitStrategy;
+import ratelimiter.RateLimiter;
+import ratelimiter.RateLimiterConfig;
+import ratelimiter.RateLimiterFactory;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decision cost of every implemented {@link RateLimitStrategy} under three
+ * traffic shapes:
+ * <ul>
+ *   <li>SINGLE_KEY: every thread hits the same identifier (worst-case contention)</li>
+ *   <li>UNIFORM: identifiers drawn uniformly from {@link #KEY_COUNT} keys</li>
+ *   <li>ZIPFIAN: identifiers drawn with a Zipf(1.0) skew, a few hot keys and a long tail</li>
+ * </ul>
+ *
+ * Run {@link #main} to sweep 1 to 64 threads with the GC profiler attached, which
+ * reports ops/sec (Throughput), p99 decision latency (SampleTime) and
+ * gc.alloc.rate.norm per decision. Identifiers are generated up front so the
+ * measurement does not include string building.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    static final int KEY_COUNT = 10_000;
+    /** Per-thread precomputed identifier sequence, a power of two so it wraps with a mask. */
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+
+    @Param({"FIXED_WINDOW", "SLIDING_WINDOW_COUNTER", "TOKEN_BUCKET", "LEAKY_BUCKET"})
+    public RateLimitStrategy strategy;
+
+    @Param({"SINGLE_KEY", "UNIFORM", "ZIPFIAN"})
+    public Traffic traffic;
+
+    public enum Traffic {
+        SINGLE_KEY, UNIFORM, ZIPFIAN
+    }
+
+    private RateLimiter limiter;
+    private String[] keys;
+    private double[] zipfCdf;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        limiter = RateLimiterFactory.create(RateLimiterConfig.builder()
+                .strategy(strategy)
+                .maxRequests(1000)
+                .windowSizeMs(1000)
+                .bucketCapacity(1000)
+                .refillRate(1000)
+                .build());
+
+        keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "client-" + i;
+        }
+        zipfCdf = zipfCdf(KEY_COUNT, 1.0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        limiter.shutdown();
+    }
+
+    private static double[] zipfCdf(int n, double exponent) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+
+    @State(Scope.Thread)
+    public static class KeySequence {
+        private String[] sequence;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(RateLimiterBenchmark benchmark) {
+            SplittableRandom random = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+            sequence = new String[SEQUENCE_LENGTH];
+            for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+                sequence[i] = benchmark.keys[benchmark.pickIndex(random)];
+            }
+        }
+
+        String nextKey() {
+            return sequence[next++ & (SEQUENCE_LENGTH - 1)];
+        }
+    }
+
+    private int pickIndex(SplittableRandom random) {
+        switch (traffic) {
+            case SINGLE_KEY:
+                return 0;
+            case UNIFORM:
+                return random.nextInt(KEY_COUNT);
+            default:
+                int index = Arrays.binarySearch(zipfCdf, random.nextDouble());
+                return Math.min(index >= 0 ? index : -index - 1, KEY_COUNT - 1);
+        }
+    }
+
+    @Benchmark
+    public boolean allowRequest(KeySequence keySequence) throws InterruptedException {
+        return limiter.allowRequest(keySequence.nextKey());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 2, 4, 8, 16, 32, 64}) {
+            Options options = new OptionsBuilder()
+                    .include(RateLimiterBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
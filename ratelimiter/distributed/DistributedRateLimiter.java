@@ -0,0 +1,280 @@
+package ratelimiter.distributed;
+
+import ratelimiter.IdentifierStateStore;
+import ratelimiter.RateLimiter;
+import ratelimiter.TimeSource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Node-local limiter that enforces a cluster-wide limit by leasing blocks of
+ * tokens from a {@link TokenCoordinator}.
+ *
+ * Requests are served from the local lease with a CAS, and the lease is topped up
+ * in the background once it falls to the refresh threshold, so the coordinator
+ * round trip stays off the request path. Only the first request for an
+ * identifier waits for a lease.
+ *
+ * At most one refresh per identifier is in flight at a time, whoever starts
+ * it, so a node never leases twice for the same shortfall.
+ */
+public class DistributedRateLimiter implements RateLimiter {
+
+    /** Lease counters, flags and object headers. */
+    private static final long LEASE_BYTES = 96;
+
+    private final TokenCoordinator coordinator;
+    private final int leaseSize;
+    private final int refreshThreshold;
+    private final long leaseTtlNanos;
+    private final long emptyLeaseBackoffNanos;
+    private final TimeSource timeSource;
+    private final IdentifierStateStore<LocalLease> leases;
+    private final ExecutorService refreshExecutor;
+
+    private static final class LocalLease {
+        private final AtomicLong tokens = new AtomicLong();
+        private final AtomicLong leasedTotal = new AtomicLong();
+        // The refresh in flight, completed when it ends; null when none is
+        private final AtomicReference<CompletableFuture<Void>> refresh = new AtomicReference<>();
+        private volatile boolean leasedOnce;
+        private volatile long expiresAtNanos;
+        private volatile long retryAfterNanos;
+    }
+
+    public DistributedRateLimiter(TokenCoordinator coordinator, DistributedRateLimiterConfig config) {
+        this.coordinator = coordinator;
+        this.leaseSize = config.getLeaseSize();
+        this.refreshThreshold = config.getRefreshThreshold() > 0
+                ? config.getRefreshThreshold() : Math.max(1, leaseSize / 4);
+        this.leaseTtlNanos = TimeUnit.MILLISECONDS.toNanos(config.getLeaseTtlMs());
+        this.emptyLeaseBackoffNanos = TimeUnit.MILLISECONDS.toNanos(config.getEmptyLeaseBackoffMs());
+        this.timeSource = config.getTimeSourceOrDefault();
+        this.leases = new IdentifierStateStore<>(config.getIdleExpiryMs(), config.getMaxTrackedIdentifiers(),
+                config.getEvictionPolicy(), LEASE_BYTES, timeSource);
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lease-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public boolean allowRequest(String identifier) {
+        return allowRequests(identifier, 1) == 1;
+    }
+
+    @Override
+    public int allowRequests(String identifier, int permits) {
+        if (permits <= 0) {
+            return 0;
+        }
+        LocalLease lease = leases.getOrCreate(identifier, k -> new LocalLease());
+        if (lease == null) {
+            return 0;
+        }
+
+        long now = timeSource.nanoTime();
+        expireIfStale(lease, now);
+
+        int granted = take(lease, permits);
+        if (granted < permits && !lease.leasedOnce) {
+            // Cold identifier: wait for the first lease instead of denying
+            CompletableFuture<Void> done = claimRefresh(lease);
+            if (done != null) {
+                try {
+                    if (!lease.leasedOnce) {
+                        refill(identifier, lease, now);
+                    }
+                } finally {
+                    endRefresh(lease, done);
+                }
+            } else {
+                CompletableFuture<Void> inFlight = lease.refresh.get();
+                if (inFlight != null) {
+                    inFlight.join();
+                }
+            }
+            granted += take(lease, permits - granted);
+        }
+
+        if (lease.tokens.get() <= refreshThreshold) {
+            scheduleRefresh(identifier, lease, now);
+        }
+        return granted;
+    }
+
+    /**
+     * If the local lease is empty, waits up to {@code timeoutMs} for the
+     * refresh in flight, starting one unless the coordinator recently had no
+     * tokens to give.
+     */
+    @Override
+    public boolean tryAllowRequest(String identifier, long timeoutMs) throws InterruptedException {
+        if (allowRequest(identifier)) {
+            return true;
+        }
+        LocalLease lease = leases.get(identifier);
+        if (lease == null || timeoutMs <= 0) {
+            return false;
+        }
+        scheduleRefresh(identifier, lease, timeSource.nanoTime());
+        CompletableFuture<Void> inFlight = lease.refresh.get();
+        if (inFlight != null) {
+            try {
+                inFlight.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                // Take whatever tokens arrived in time
+            }
+        }
+        return take(lease, 1) == 1;
+    }
+
+    private int take(LocalLease lease, int permits) {
+        while (true) {
+            long available = lease.tokens.get();
+            int taken = (int) Math.min(available, permits);
+            if (taken <= 0) {
+                return 0;
+            }
+            if (lease.tokens.compareAndSet(available, available - taken)) {
+                return taken;
+            }
+        }
+    }
+
+    private void expireIfStale(LocalLease lease, long now) {
+        // A refill racing with expiry can lose its tokens, which only under-admits
+        if (leaseTtlNanos > 0 && lease.tokens.get() > 0 && now - lease.expiresAtNanos >= 0) {
+            lease.tokens.set(0);
+            lease.leasedTotal.set(0);
+        }
+    }
+
+    private void scheduleRefresh(String identifier, LocalLease lease, long now) {
+        if (now - lease.retryAfterNanos < 0) {
+            return;
+        }
+        CompletableFuture<Void> done = claimRefresh(lease);
+        if (done == null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refill(identifier, lease, timeSource.nanoTime());
+                } finally {
+                    endRefresh(lease, done);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Executor shut down
+            endRefresh(lease, done);
+        }
+    }
+
+    /**
+     * @return the future to complete once the refresh ends, or null if another one is in flight
+     */
+    private static CompletableFuture<Void> claimRefresh(LocalLease lease) {
+        if (lease.refresh.get() != null) {
+            return null;
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        return lease.refresh.compareAndSet(null, done) ? done : null;
+    }
+
+    private static void endRefresh(LocalLease lease, CompletableFuture<Void> done) {
+        lease.refresh.set(null);
+        done.complete(null);
+    }
+
+
+    private void refill(String identifier, LocalLease lease, long now) {
+        if (now - lease.retryAfterNanos < 0) {
+            return;
+        }
+        int granted = coordinator.leaseTokens(identifier, leaseSize);
+        lease.leasedOnce = true;
+        if (granted <= 0) {
+            lease.retryAfterNanos = now + emptyLeaseBackoffNanos;
+            return;
+        }
+        // Publish the new expiry before the tokens so readers never expire a fresh lease
+        lease.expiresAtNanos = now + leaseTtlNanos;
+        lease.leasedTotal.addAndGet(granted);
+        lease.tokens.addAndGet(granted);
+    }
+
+    /**
+     * Requests served from the tokens currently leased by this node.
+     */
+    @Override
+    public int getCurrentCount(String identifier) {
+        LocalLease lease = leases.get(identifier);
+        return lease != null ? (int) (lease.leasedTotal.get() - lease.tokens.get()) : 0;
+    }
+
+    /**
+     * Tokens left in this node's lease; other nodes may hold more.
+     */
+    @Override
+    public int getRemainingRequests(String identifier) {
+        LocalLease lease = leases.get(identifier);
+        return lease != null ? (int) lease.tokens.get() : 0;
+    }
+
+    /**
+     * Puts the permits back into the local lease for reuse by this node.
+     */
+    @Override
+    public void refund(String identifier, int permits) {
+        LocalLease lease = leases.get(identifier);
+        if (lease != null && permits > 0) {
+            lease.tokens.addAndGet(permits);
+        }
+    }
+
+    /**
+     * Drops the local lease. Tokens already taken from the coordinator are not returned.
+     */
+    @Override
+    public void reset(String identifier) {
+        leases.remove(identifier);
+    }
+
+    @Override
+    public void resetAll() {
+        leases.clear();
+    }
+
+    @Override
+    public int getTrackedIdentifierCount() {
+        return leases.size();
+    }
+
+    @Override
+    public long getEstimatedMemoryBytes() {
+        return leases.getEstimatedMemoryBytes();
+    }
+
+    @Override
+    public void shutdown() {
+        refreshExecutor.shutdown();
+        try {
+            if (!refreshExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                refreshExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            refreshExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ratelimiter.distributed;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import ratelimiter.EvictionPolicy;
+import ratelimiter.SystemTimeSource;
+import ratelimiter.TimeSource;
+
+@AllArgsConstructor
+@Data
+@Builder
+public class DistributedRateLimiterConfig {
+    // Tokens requested from the coordinator per lease
+    private final int leaseSize;
+    // Refresh asynchronously once local tokens drop to this level (0 means a quarter of the lease)
+    private final int refreshThreshold;
+    // Unused leased tokens are dropped after this long, so they cannot pile up into a burst (0 keeps them)
+    private final long leaseTtlMs;
+    // Wait this long before asking again after the coordinator granted nothing
+    private final long emptyLeaseBackoffMs;
+
+    // Identifier tracking (0 disables the limit)
+    private final long idleExpiryMs;
+    private final int maxTrackedIdentifiers;
+    private final EvictionPolicy evictionPolicy;
+
+    // Defaults to System.nanoTime() when not set
+    private final TimeSource timeSource;
+
+    public TimeSource getTimeSourceOrDefault() {
+        return timeSource != null ? timeSource : SystemTimeSource.INSTANCE;
+    }
+}
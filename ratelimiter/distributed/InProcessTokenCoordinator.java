@@ -0,0 +1,22 @@
+package ratelimiter.distributed;
+
+import ratelimiter.RateLimiter;
+
+/**
+ * Coordinator backed by a single {@link RateLimiter} configured with the
+ * cluster-wide limit. Nodes in the same JVM can share it directly, and
+ * {@link TcpTokenCoordinatorServer} exposes it to other processes.
+ */
+public class InProcessTokenCoordinator implements TokenCoordinator {
+
+    private final RateLimiter globalLimiter;
+
+    public InProcessTokenCoordinator(RateLimiter globalLimiter) {
+        this.globalLimiter = globalLimiter;
+    }
+
+    @Override
+    public int leaseTokens(String identifier, int requestedTokens) {
+        return globalLimiter.allowRequests(identifier, requestedTokens);
+    }
+}
@@ -0,0 +1,52 @@
+package ratelimiter.distributed;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Client side of {@link TcpTokenCoordinatorServer}. Uses one connection and
+ * sends one lease request at a time; leases are refreshed off the request path,
+ * so the round trip is not on the hot path.
+ *
+ * A failed call grants 0 tokens, so a coordinator outage fails closed.
+ */
+public class TcpTokenCoordinator implements TokenCoordinator {
+
+    private final Socket socket;
+    private final BufferedReader in;
+    private final Writer out;
+
+    public TcpTokenCoordinator(int port) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public synchronized int leaseTokens(String identifier, int requestedTokens) {
+        try {
+            out.write("LEASE " + requestedTokens + " " + identifier + "\n");
+            out.flush();
+            String reply = in.readLine();
+            if (reply == null || "ERR".equals(reply)) {
+                return 0;
+            }
+            return Integer.parseInt(reply);
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Lease request failed for " + identifier + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing coordinator connection: " + e.getMessage());
+        }
+    }
+}
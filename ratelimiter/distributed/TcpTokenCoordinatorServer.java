@@ -0,0 +1,99 @@
+package ratelimiter.distributed;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves a {@link TokenCoordinator} over a loopback TCP socket, for tests that
+ * run several nodes as separate processes.
+ *
+ * Line protocol, one request per line:
+ * <pre>
+ *   LEASE &lt;tokens&gt; &lt;identifier&gt;   -&gt;   &lt;granted&gt;
+ * </pre>
+ * Anything else is answered with {@code ERR}.
+ */
+public class TcpTokenCoordinatorServer implements AutoCloseable {
+
+    private final TokenCoordinator delegate;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connectionExecutor;
+
+    /**
+     * @param port Port to listen on, 0 for any free port
+     */
+    public TcpTokenCoordinatorServer(TokenCoordinator delegate, int port) throws IOException {
+        this.delegate = delegate;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.connectionExecutor = Executors.newCachedThreadPool();
+        connectionExecutor.submit(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connectionExecutor.submit(() -> serve(socket));
+            } catch (SocketException e) {
+                // Server socket closed
+                return;
+            } catch (IOException e) {
+                System.err.println("Coordinator accept error: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                out.write(handle(line));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private String handle(String line) {
+        String[] parts = line.split(" ", 3);
+        if (parts.length != 3 || !"LEASE".equals(parts[0])) {
+            return "ERR";
+        }
+        try {
+            return Integer.toString(delegate.leaseTokens(parts[2], Integer.parseInt(parts[1])));
+        } catch (NumberFormatException e) {
+            return "ERR";
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing coordinator socket: " + e.getMessage());
+        }
+        connectionExecutor.shutdownNow();
+        try {
+            connectionExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
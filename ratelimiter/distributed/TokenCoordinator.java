@@ -0,0 +1,21 @@
+package ratelimiter.distributed;
+
+/**
+ * Cluster-wide source of rate limit tokens. Nodes lease tokens in blocks and
+ * serve requests locally, so the coordinator sees one call per lease rather
+ * than one per request.
+ */
+public interface TokenCoordinator extends AutoCloseable {
+    /**
+     * Lease tokens for an identifier from the cluster-wide budget
+     *
+     * @param identifier User ID, API key, or IP address
+     * @param requestedTokens Block size wanted by the node
+     * @return Tokens granted, between 0 and requestedTokens
+     */
+    int leaseTokens(String identifier, int requestedTokens);
+
+    @Override
+    default void close() {
+    }
+}
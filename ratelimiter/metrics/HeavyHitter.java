@@ -0,0 +1,12 @@
+package ratelimiter.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@AllArgsConstructor
+@Data
+public class HeavyHitter {
+    private final String identifier;
+    // Count-min estimate, never below the true count
+    private final long estimatedCount;
+}
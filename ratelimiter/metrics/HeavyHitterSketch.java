@@ -0,0 +1,118 @@
+package ratelimiter.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks the most frequent identifiers in fixed memory.
+ *
+ * A count-min sketch ({@code depth} rows of {@code width} counters) estimates
+ * how often each identifier was seen; estimates can only overcount, by roughly
+ * total / width. Identifiers whose estimate reaches the current top-K are kept
+ * in a small candidate set, which is trimmed back to K by whichever thread
+ * finds it at twice that size. Readers only touch atomics and the concurrent
+ * set, so they never block writers.
+ */
+public class HeavyHitterSketch {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final int depth;
+    private final int widthMask;
+    private final int topK;
+    private final AtomicLongArray counters;
+    private final Set<String> candidates = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+    private volatile long admissionThreshold;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     * @param depth number of rows, at most 4
+     * @param topK  number of heavy hitters to keep
+     */
+    public HeavyHitterSketch(int width, int depth, int topK) {
+        int roundedWidth = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.depth = Math.min(depth, SEEDS.length);
+        this.widthMask = roundedWidth - 1;
+        this.topK = topK;
+        this.counters = new AtomicLongArray(this.depth * roundedWidth);
+    }
+
+    public HeavyHitterSketch(int topK) {
+        this(2048, 4, topK);
+    }
+
+    public void add(String identifier, long count) {
+        int hash = identifier.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.addAndGet(index(row, hash), count));
+        }
+
+        if (estimate >= admissionThreshold && candidates.add(identifier) && candidates.size() >= topK * 2) {
+            trim();
+        }
+    }
+
+    private int index(int row, int hash) {
+        long mixed = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % SEEDS.length];
+        int column = (int) (mixed >>> 40) & widthMask;
+        return row * (widthMask + 1) + column;
+    }
+
+    public long estimate(String identifier) {
+        int hash = identifier.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, hash)));
+        }
+        return estimate;
+    }
+
+    private void trim() {
+        if (!trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<HeavyHitter> ranked = rank();
+            for (int i = topK; i < ranked.size(); i++) {
+                candidates.remove(ranked.get(i).getIdentifier());
+            }
+            if (ranked.size() >= topK) {
+                admissionThreshold = ranked.get(topK - 1).getEstimatedCount();
+            }
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    private List<HeavyHitter> rank() {
+        List<HeavyHitter> ranked = new ArrayList<>(candidates.size());
+        candidates.forEach(identifier -> ranked.add(new HeavyHitter(identifier, estimate(identifier))));
+        ranked.sort(Comparator.comparingLong(HeavyHitter::getEstimatedCount).reversed());
+        return ranked;
+    }
+
+    /**
+     * The most frequent identifiers seen so far, highest estimate first.
+     */
+    public List<HeavyHitter> getTop(int limit) {
+        List<HeavyHitter> ranked = rank();
+        return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+    }
+
+    public void reset() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+        candidates.clear();
+        admissionThreshold = 0;
+    }
+}
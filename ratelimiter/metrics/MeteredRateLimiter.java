@@ -0,0 +1,97 @@
+package ratelimiter.metrics;
+
+import ratelimiter.RateLimiter;
+import ratelimiter.SystemTimeSource;
+import ratelimiter.TimeSource;
+
+/**
+ * Decorator that records every decision of the wrapped limiter in a
+ * {@link RateLimiterMetrics}. Decision latency is only recorded for the
+ * non-blocking calls; {@link #tryAllowRequest} is counted but its wait is
+ * not a decision cost.
+ */
+public class MeteredRateLimiter implements RateLimiter {
+
+    public static final int DEFAULT_TOP_K = 20;
+
+    private final RateLimiter delegate;
+    private final RateLimiterMetrics metrics;
+    private final TimeSource timeSource;
+
+    public MeteredRateLimiter(String name, RateLimiter delegate) {
+        this(name, delegate, DEFAULT_TOP_K, SystemTimeSource.INSTANCE);
+    }
+
+    public MeteredRateLimiter(String name, RateLimiter delegate, int topK, TimeSource timeSource) {
+        this.delegate = delegate;
+        this.metrics = new RateLimiterMetrics(name, topK);
+        this.timeSource = timeSource;
+    }
+
+    public RateLimiterMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public boolean allowRequest(String identifier) throws InterruptedException {
+        long start = timeSource.nanoTime();
+        boolean allowed = delegate.allowRequest(identifier);
+        metrics.record(identifier, 1, allowed ? 1 : 0, timeSource.nanoTime() - start);
+        return allowed;
+    }
+
+    @Override
+    public int allowRequests(String identifier, int permits) {
+        long start = timeSource.nanoTime();
+        int granted = delegate.allowRequests(identifier, permits);
+        metrics.record(identifier, Math.max(0, permits), granted, timeSource.nanoTime() - start);
+        return granted;
+    }
+
+    @Override
+    public boolean tryAllowRequest(String identifier, long timeoutMs) throws InterruptedException {
+        boolean allowed = delegate.tryAllowRequest(identifier, timeoutMs);
+        metrics.record(identifier, 1, allowed ? 1 : 0, -1);
+        return allowed;
+    }
+
+    @Override
+    public int getCurrentCount(String identifier) {
+        return delegate.getCurrentCount(identifier);
+    }
+
+    @Override
+    public int getRemainingRequests(String identifier) {
+        return delegate.getRemainingRequests(identifier);
+    }
+
+    @Override
+    public void refund(String identifier, int permits) {
+        delegate.refund(identifier, permits);
+    }
+
+    @Override
+    public void reset(String identifier) {
+        delegate.reset(identifier);
+    }
+
+    @Override
+    public void resetAll() {
+        delegate.resetAll();
+    }
+
+    @Override
+    public int getTrackedIdentifierCount() {
+        return delegate.getTrackedIdentifierCount();
+    }
+
+    @Override
+    public long getEstimatedMemoryBytes() {
+        return delegate.getEstimatedMemoryBytes();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,80 @@
+package ratelimiter.metrics;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregate decisions of one limiter. Every field is a striped counter or an
+ * atomic array, so reading the metrics never locks the limiter's state.
+ */
+public class RateLimiterMetrics {
+
+    private final String name;
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+    private final LatencyHistogram decisionLatency = new LatencyHistogram();
+    private final HeavyHitterSketch throttled;
+
+    public RateLimiterMetrics(String name, int topK) {
+        this.name = name;
+        this.throttled = new HeavyHitterSketch(topK);
+    }
+
+    void record(String identifier, int requested, int granted, long latencyNanos) {
+        if (granted > 0) {
+            allowed.add(granted);
+        }
+        int deniedPermits = requested - granted;
+        if (deniedPermits > 0) {
+            denied.add(deniedPermits);
+            throttled.add(identifier, deniedPermits);
+        }
+        if (latencyNanos >= 0) {
+            decisionLatency.record(latencyNanos);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getAllowedCount() {
+        return allowed.sum();
+    }
+
+    public long getDeniedCount() {
+        return denied.sum();
+    }
+
+    public double getDenyRate() {
+        long allowedCount = allowed.sum();
+        long deniedCount = denied.sum();
+        long total = allowedCount + deniedCount;
+        return total == 0 ? 0 : (double) deniedCount / total;
+    }
+
+    public LatencyHistogram getDecisionLatency() {
+        return decisionLatency;
+    }
+
+    /**
+     * Identifiers with the most denied permits, highest first.
+     */
+    public List<HeavyHitter> getTopThrottled(int limit) {
+        return throttled.getTop(limit);
+    }
+
+    public void reset() {
+        allowed.reset();
+        denied.reset();
+        decisionLatency.reset();
+        throttled.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: allowed=%d, denied=%d (%.1f%%), p50=%dns, p99=%dns",
+                name, getAllowedCount(), getDeniedCount(), getDenyRate() * 100,
+                decisionLatency.getPercentileNanos(0.50), decisionLatency.getPercentileNanos(0.99));
+    }
+}